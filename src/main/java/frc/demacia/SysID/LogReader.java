@@ -1,42 +1,99 @@
 package frc.demacia.SysID;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
-import org.ejml.simple.SimpleMatrix;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoublePredicate;
+
+import frc.demacia.utils.Motors.MotorSample;
+
+/**
+ * Reads the motor entries of a wpilog and fits kS, kV and kA for every motor.
+ *
+ * <p>All the state of a read is kept in the instance and every motor group is analyzed
+ * on its own, so separate readers can analyze different logs on different threads.</p>
+ *
+ * <pre>
+ * Map&lt;String, LogReader.SysIDResults&gt; results = new LogReader(path).analyze();
+ * </pre>
+ */
 public class LogReader {
 
-    private static Map<Integer,List<EntryDescription>> entries;
-    private static double minPowerToMove = Double.MAX_VALUE;
+    private static final String MOTOR_SAMPLE_TYPE = "struct:" + MotorSample.struct.getTypeName();
+    private static final String CONTROL_MODE_SUFFIX = " ControlMode";
+    private static final String DS_ENABLED = "DS:enabled";
+    private static final String DS_AUTONOMOUS = "DS:autonomous";
+    private static final String DS_TEST = "DS:test";
+    private static final int PROGRESS_RECORDS = 10000;
+    private static final Progress NO_PROGRESS = new Progress() {};
+
+    private final String fileName;
+    private final Map<Integer,List<EntryDescription>> entries = new HashMap<>();
+    private float[] floatScratch = new float[0];
+    private double[] valueScratch = new double[0];
+    private final MotorSample motorSample = new MotorSample();
+    private boolean isRead = false;
+    private Progress progress = NO_PROGRESS;
+    private WpilogIndex indexBuilder = null;
+
+    private TimeWindows windows = TimeWindows.all();
+    private Mode mode = Mode.ALL;
+    private Set<String> controlModes = Set.of();
+
+    /** Robot modes read from the DriverStation entries that DriverStation.startDataLog writes */
+    public enum Mode {ALL, ENABLED, AUTONOMOUS, TELEOP, TEST}
+
+    /**
+     * Receives the progress of {@link LogReader#analyze(Progress)} and can cancel it.
+     * {@link #groupAnalyzed} is called from the analysis threads.
+     */
+    public interface Progress {
+        /** position out of size is the part of the file read, or of the indexed records read */
+        default void recordsScanned(int records, long position, long size) {}
+
+        default void groupAnalyzed(String name, SysIDResults result, int done, int total) {}
+
+        default boolean isCancelled() {
+            return false;
+        }
+    }
 
     private static class EntryDescription {
         String name;
         String type;
-        List<DataPoint> data = new ArrayList<>();
+        SampleColumns data = new SampleColumns();
+        // state entries (DriverStation and ControlMode) are not analyzed, they only make windows
+        boolean isState = false;
+        int index = 0;
+        List<String> labels = null;
 
         EntryDescription(String name, String type) {
             this.name = name;
             this.type = type;
         }
-    }
-
-    private static class DataPoint {
-        long timestamp;
-        double[] value;
 
-        DataPoint(long timestamp, double[] value) {
-            this.timestamp = timestamp;
-            this.value = value.clone();
+        static EntryDescription state(String name, String type, int index) {
+            EntryDescription entry = new EntryDescription(name, type);
+            entry.isState = true;
+            entry.index = index;
+            if (type.startsWith("string")) entry.labels = new ArrayList<>();
+            return entry;
         }
     }
 
@@ -61,12 +118,82 @@ public class LogReader {
         }
     }
 
-    public static Map<String, SysIDResults> getResult(String fileName) {
-        entries = new HashMap<>();
+    public LogReader(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Analyzes only the samples inside the windows.
+     *
+     * @return this, for chaining
+     */
+    public LogReader withWindows(TimeWindows windows) {
+        this.windows = windows;
+        return this;
+    }
+
+    /**
+     * Analyzes only the samples logged while the robot was in a mode. Logs without the
+     * DriverStation entries are analyzed whole.
+     *
+     * @return this, for chaining
+     */
+    public LogReader withMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * Analyzes a motor only while its ControlMode entry is one of the modes, for example
+     * {@code "VoltageOut"}. Motors that do not log a ControlMode are analyzed whole.
+     *
+     * @return this, for chaining
+     */
+    public LogReader withControlModes(String... modes) {
+        this.controlModes = Set.of(modes);
+        return this;
+    }
+
+    /**
+     * Reads the log, on the first call only, and analyzes every motor in it. The filters
+     * can be changed between calls without reading the log again.
+     *
+     * @return results by motor name
+     * @throws IOException if the file can not be read or is not a wpilog
+     */
+    public Map<String, SysIDResults> analyze() throws IOException {
+        return analyze(NO_PROGRESS);
+    }
+
+    /**
+     * Same as {@link #analyze()}, reporting progress every {@value #PROGRESS_RECORDS} records
+     * and after every motor group.
+     *
+     * @throws CancellationException if progress was cancelled, the results so far are dropped
+     */
+    public Map<String, SysIDResults> analyze(Progress progress) throws IOException {
+        this.progress = progress;
         try {
-            System.out.println("Reading log file: " + fileName);
-            wpilogReader(fileName);
+            if (!isRead) {
+                System.out.println("Reading log file: " + fileName);
+                entries.clear();
+                wpilogReader();
+                isRead = true;
+            }
             return performAnalysis();
+        } finally {
+            this.progress = NO_PROGRESS;
+        }
+    }
+
+    /**
+     * Reads and analyzes a log, printing read errors instead of throwing them.
+     *
+     * @return results by motor name, empty if the file could not be read
+     */
+    public static Map<String, SysIDResults> getResult(String fileName) {
+        try {
+            return new LogReader(fileName).analyze();
         } catch (IOException e) {
             System.err.println("Error reading log file: " + e.getMessage());
             e.printStackTrace();
@@ -74,295 +201,491 @@ public class LogReader {
         }
     }
 
-    private static void wpilogReader(String fileName) throws IOException {
-        try (FileInputStream fileInputStream = new FileInputStream(fileName);
-             DataInputStream dataInputStream = new DataInputStream(fileInputStream)) {
-            
-            byte[] signature = readHeader(dataInputStream);
+    private void wpilogReader() throws IOException {
+        Path path = Paths.get(fileName);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Log file is too large to map: " + size + " bytes");
+            }
+            // the OS pages the file in on demand, records are decoded in place
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] signature = readHeader(buffer);
             if (!Arrays.equals(signature, "WPILOG".getBytes())) {
                 throw new IOException("Invalid WPILOG file format. Expected WPILOG, got: " + new String(signature));
             }
             
-            skipHeaderExtra(dataInputStream);
-            readRecords(dataInputStream);
+            skipHeaderExtra(buffer);
+
+            String fingerprint = WpilogIndex.fingerprint(buffer);
+            WpilogIndex index = WpilogIndex.load(path, fingerprint);
+            if (index != null) {
+                System.out.println("Using the record index of " + fileName);
+                readIndexedRecords(buffer, index);
+                return;
+            }
+            indexBuilder = new WpilogIndex(fingerprint);
+            try {
+                readRecords(buffer);
+                indexBuilder.save(path);
+            } finally {
+                indexBuilder = null;
+            }
         }
     }
 
-    private static byte[] readHeader(DataInputStream dataInputStream) throws IOException {
+    private static byte[] readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12) {
+            throw new IOException("File is too short to be a WPILOG");
+        }
         byte[] signature = new byte[6];
-        dataInputStream.readFully(signature);
+        buffer.get(signature);
         return signature;
     }
 
-    private static void skipHeaderExtra(DataInputStream dataInputStream) throws IOException {
-        short version = Short.reverseBytes(dataInputStream.readShort());
-        int extraLength = Integer.reverseBytes(dataInputStream.readInt());
+    private static void skipHeaderExtra(ByteBuffer buffer) {
+        short version = buffer.getShort();
+        int extraLength = buffer.getInt();
         System.out.println("WPILOG version: " + version + ", extra header length: " + extraLength);
         if(extraLength > 0) {
-            dataInputStream.skipBytes(extraLength);
+            buffer.position(Math.min(buffer.limit(), buffer.position() + extraLength));
         }
     }
 
-    private static void readRecords(DataInputStream dataInputStream) throws IOException {
+    private void readRecords(ByteBuffer buffer) {
         int recordCount = 0;
         int dataRecordsProcessed = 0;
         
-        // FIXED: Infinite loop that breaks only on EOFException. 
-        // available() is unreliable for files and causes early exit.
-        while (true) {
-            try {
-                if (readRecord(dataInputStream)) {
-                    dataRecordsProcessed++;
-                }
-                recordCount++;
-                if (recordCount % 10000 == 0) {
-                    System.out.println("Processed " + recordCount + " records...");
-                }
-            } catch (EOFException e) {
-                // Expected end of file
+        while (buffer.hasRemaining()) {
+            int result = readRecord(buffer);
+            if (result < 0) {
+                // truncated record at the end of the file
                 break;
             }
+            if (result > 0) {
+                dataRecordsProcessed++;
+            }
+            recordCount++;
+            if (recordCount % PROGRESS_RECORDS == 0) {
+                if (progress.isCancelled()) {
+                    throw new CancellationException("Reading " + fileName + " cancelled");
+                }
+                System.out.println("Processed " + recordCount + " records...");
+                progress.recordsScanned(recordCount, buffer.position(), buffer.limit());
+            }
         }
+        progress.recordsScanned(recordCount, buffer.position(), buffer.limit());
         System.out.println("Total records scanned: " + recordCount);
         System.out.println("Valid data records stored: " + dataRecordsProcessed);
     }
 
-    // Returns true if data was added
-    private static boolean readRecord(DataInputStream dataInputStream) throws IOException {
-        // These reads will throw EOFException if file ends, which is caught in readRecords
-        int headerByte = dataInputStream.readUnsignedByte();
+    // Reads the control records and then only the records of the motor entries
+    private void readIndexedRecords(ByteBuffer buffer, WpilogIndex index) {
+        WpilogIndex.Records control = index.get(0);
+        int recordCount = readIndexedRecords(buffer, control, 0, control == null ? 0 : control.size);
+
+        List<WpilogIndex.Records> motorRecords = new ArrayList<>();
+        int total = recordCount;
+        for (int id : entries.keySet()) {
+            WpilogIndex.Records records = index.get(id);
+            if (records == null) continue;
+            motorRecords.add(records);
+            total += records.size;
+        }
+        for (WpilogIndex.Records records : motorRecords) {
+            recordCount = readIndexedRecords(buffer, records, recordCount, total);
+        }
+        progress.recordsScanned(recordCount, total, total);
+        System.out.println("Indexed records read: " + recordCount);
+    }
+
+    // Progress is reported as records read out of the records to read, not as file position
+    private int readIndexedRecords(ByteBuffer buffer, WpilogIndex.Records records, int recordCount, int total) {
+        if (records == null) return recordCount;
+        for (int i = 0; i < records.size; i++) {
+            buffer.position(records.offsets[i]);
+            readRecord(buffer);
+            if (++recordCount % PROGRESS_RECORDS == 0) {
+                if (progress.isCancelled()) {
+                    throw new CancellationException("Reading " + fileName + " cancelled");
+                }
+                progress.recordsScanned(recordCount, recordCount, total);
+            }
+        }
+        return recordCount;
+    }
+
+    // Returns 1 if data was added, 0 if not and -1 if the record is cut off
+    private int readRecord(ByteBuffer buffer) {
+        int recordStart = buffer.position();
+        int headerByte = buffer.get() & 0xFF;
         int idLength = (headerByte & 0x3) + 1;
         int payloadLength = (headerByte >> 2 & 0x3) + 1;
         int timestampLength = (headerByte >> 4 & 0x7) + 1;
 
-        int recordId = readLittleEndianInt(dataInputStream, idLength);
-        int payloadSize = readLittleEndianInt(dataInputStream, payloadLength);
-        long timestamp = readLittleEndianLong(dataInputStream, timestampLength);
+        if (buffer.remaining() < idLength + payloadLength + timestampLength) return -1;
+        int recordId = (int) readLittleEndian(buffer, idLength);
+        int payloadSize = (int) readLittleEndian(buffer, payloadLength);
+        long timestamp = readLittleEndian(buffer, timestampLength);
+
+        int payloadStart = buffer.position();
+        if (payloadSize < 0 || payloadSize > buffer.remaining()) return -1;
+        if (indexBuilder != null) {
+            indexBuilder.add(recordId, recordStart, timestamp);
+        }
+        // every path below reads from a slice, the main buffer just jumps over the payload
+        buffer.position(payloadStart + payloadSize);
 
         if (recordId == 0) {
-            addEntryFromControlRecord(dataInputStream, payloadSize);
-            return false;
-        } else {
-            List<EntryDescription> entryList = entries.get(recordId);
-            if (entryList != null && !entryList.isEmpty()) {
-                // Check type of the first one
-                String type = entryList.get(0).type.trim();
-
-                boolean isFloat = type.equals("float") || type.equals("float[]");
-                boolean isDouble = type.equals("double") || type.equals("double[]");
-
-                if (isFloat || isDouble) {
-                    double[] value = null;
-
-                    if (isFloat) {
-                        if (payloadSize % 4 == 0) {
-                            int count = payloadSize / 4;
-                            value = new double[count];
-                            for (int i = 0; i < count; i++) {
-                                int raw = Integer.reverseBytes(dataInputStream.readInt());
-                                value[i] = (double) Float.intBitsToFloat(raw);
-                            }
-                        } else {
-                            dataInputStream.skipBytes(payloadSize);
-                        }
-                    } else if (isDouble) {
-                         if (payloadSize % 8 == 0) {
-                            int count = payloadSize / 8;
-                            value = new double[count];
-                            for (int i = 0; i < count; i++) {
-                                long raw = Long.reverseBytes(dataInputStream.readLong());
-                                value[i] = Double.longBitsToDouble(raw);
-                            }
-                        } else {
-                            dataInputStream.skipBytes(payloadSize);
-                        }
-                    }
-
-                    if (value != null) {
-                        // FIXED: Handle merged entries (e.g. FrontLeft | FrontRight sharing one ID)
-                        // If we have 4 motors mapped to this ID, we split the value array into 4 chunks.
-                        int numEntries = entryList.size();
-                        if (numEntries > 1 && value.length % numEntries == 0) {
-                            int chunkSize = value.length / numEntries;
-                            for (int i = 0; i < numEntries; i++) {
-                                // Slice the array for this specific motor
-                                double[] slice = Arrays.copyOfRange(value, i * chunkSize, (i + 1) * chunkSize);
-                                entryList.get(i).data.add(new DataPoint(timestamp, slice));
-                            }
-                        } else {
-                            // Standard 1-to-1 mapping
-                            for (EntryDescription entry : entryList) {
-                                entry.data.add(new DataPoint(timestamp, value));
-                            }
-                        }
-                        return true;
-                    }
-
-                } else {
-                    // Skip types we don't handle (boolean, string, etc)
-                    dataInputStream.skipBytes(payloadSize);
-                }
-            } else {
-                // Unknown ID
-                dataInputStream.skipBytes(payloadSize);
-            }
+            addEntryFromControlRecord(buffer.slice(payloadStart, payloadSize).order(ByteOrder.LITTLE_ENDIAN));
+            return 0;
         }
-        return false;
-    }
 
-    private static void addEntryFromControlRecord(DataInputStream dataInputStream, int payloadSize) throws IOException {
-        int recordType = dataInputStream.readUnsignedByte();
-        if (recordType == 0) { // Start Record
-            int entryId = Integer.reverseBytes(dataInputStream.readInt());
+        List<EntryDescription> entryList = entries.get(recordId);
+        if (entryList == null || entryList.isEmpty()) {
+            // Unknown ID
+            return 0;
+        }
 
-            int nameLength = Integer.reverseBytes(dataInputStream.readInt());
-            String name = readString(dataInputStream, nameLength);
+        // Check type of the first one
+        String type = entryList.get(0).type.trim();
+        ByteBuffer payload = buffer.slice(payloadStart, payloadSize).order(ByteOrder.LITTLE_ENDIAN);
 
-            int typeLength = Integer.reverseBytes(dataInputStream.readInt());
-            String type = readString(dataInputStream, typeLength);
+        if (entryList.get(0).isState) {
+            return readState(payload, type, timestamp, entryList) ? 1 : 0;
+        }
+        if (type.equals(MOTOR_SAMPLE_TYPE)) {
+            return readMotorSample(payload, timestamp, entryList) ? 1 : 0;
+        }
 
-            int metaLength = Integer.reverseBytes(dataInputStream.readInt());
-            String metadata = readString(dataInputStream, metaLength);
+        // values are decoded into a reused scratch array and copied into the columns
+        int count = -1;
+        if ((type.equals("float") || type.equals("float[]")) && payloadSize % 4 == 0) {
+            FloatBuffer floats = payload.asFloatBuffer();
+            count = floats.remaining();
+            if (floatScratch.length < count) floatScratch = new float[count];
+            if (valueScratch.length < count) valueScratch = new double[count];
+            floats.get(floatScratch, 0, count);
+            for (int i = 0; i < count; i++) {
+                valueScratch[i] = floatScratch[i];
+            }
+        } else if ((type.equals("double") || type.equals("double[]")) && payloadSize % 8 == 0) {
+            DoubleBuffer doubles = payload.asDoubleBuffer();
+            count = doubles.remaining();
+            if (valueScratch.length < count) valueScratch = new double[count];
+            doubles.get(valueScratch, 0, count);
+        }
 
-            String[] names = name.split(" \\| ");
-            String[] metas = metadata.split(" \\| ");
-            
-            for (int i = 0; i < names.length; i++) {
-                String currentName = names[i].trim();
-                String currentMeta = (i < metas.length) ? metas[i].trim() : "";
+        if (count < 0) {
+            // Skip types we don't handle (boolean, string, etc)
+            return 0;
+        }
 
-                if (currentMeta.contains("motor")) {
-                    entries.putIfAbsent(entryId, new ArrayList<>());
-                    entries.get(entryId).add(new EntryDescription(currentName, type));
-                }
+        // A merged entry (e.g. FrontLeft | FrontRight) holds several motors under one ID,
+        // its values are split into equal chunks, one per motor.
+        int numEntries = entryList.size();
+        if (numEntries > 1 && count % numEntries == 0) {
+            int chunkSize = count / numEntries;
+            for (int i = 0; i < numEntries; i++) {
+                // Slice the array for this specific motor
+                entryList.get(i).data.add(timestamp, valueScratch, i * chunkSize, chunkSize);
             }
         } else {
-            // Skip other control records (Finish, SetMetadata, etc.)
-            // We already read 1 byte (recordType), so skip the rest
-            if (payloadSize > 1) {
-                dataInputStream.skipBytes(payloadSize - 1);
+            // Standard 1-to-1 mapping
+            for (EntryDescription entry : entryList) {
+                entry.data.add(timestamp, valueScratch, 0, count);
             }
         }
+        return 1;
     }
 
-    private static String readString(DataInputStream dataInputStream, int length) throws IOException {
-        byte[] bytes = new byte[length];
-        dataInputStream.readFully(bytes);
-        return new String(bytes, "UTF-8");
+    // Struct entries have one motor per entry and a fixed layout, no name splitting needed
+    private boolean readMotorSample(ByteBuffer payload, long timestamp, List<EntryDescription> entryList) {
+        if (payload.remaining() != MotorSample.struct.getSize()) {
+            return false;
+        }
+        MotorSample.struct.unpackInto(motorSample, payload);
+
+        // same order as the old float array entries: Position, Velocity, Acceleration, Voltage, ...
+        if (valueScratch.length < 7) valueScratch = new double[7];
+        valueScratch[0] = motorSample.position;
+        valueScratch[1] = motorSample.velocity;
+        valueScratch[2] = motorSample.acceleration;
+        valueScratch[3] = motorSample.voltage;
+        valueScratch[4] = motorSample.current;
+        valueScratch[5] = motorSample.closedLoopError;
+        valueScratch[6] = motorSample.closedLoopSetpoint;
+        for (EntryDescription entry : entryList) {
+            entry.data.add(timestamp, valueScratch, 0, 7);
+        }
+        return true;
     }
 
-    private static int readLittleEndianInt(DataInputStream dis, int bytes) throws IOException {
-        int result = 0;
-        for (int i = 0; i < bytes; i++) {
-            result |= (dis.readUnsignedByte() << (i * 8));
+    // States are stored as one value: 0 or 1 for booleans, the label index for strings
+    private boolean readState(ByteBuffer payload, String type, long timestamp, List<EntryDescription> entryList) {
+        if (valueScratch.length < 1) valueScratch = new double[1];
+        boolean added = false;
+        for (EntryDescription entry : entryList) {
+            String label = null;
+            if (type.equals("boolean") || type.equals("boolean[]")) {
+                int at = type.equals("boolean") ? 0 : entry.index;
+                if (at >= payload.limit()) continue;
+                valueScratch[0] = payload.get(at) != 0 ? 1 : 0;
+            } else if (type.equals("string")) {
+                label = StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+            } else if (type.equals("string[]")) {
+                ByteBuffer array = payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                int count = array.remaining() >= 4 ? array.getInt() : 0;
+                for (int i = 0; i <= entry.index && i < count; i++) {
+                    label = readString(array);
+                    if (label == null) break;
+                    if (i < entry.index) label = null;
+                }
+            }
+            if (entry.labels != null) {
+                if (label == null) continue;
+                int labelIndex = entry.labels.indexOf(label);
+                if (labelIndex < 0) {
+                    labelIndex = entry.labels.size();
+                    entry.labels.add(label);
+                }
+                valueScratch[0] = labelIndex;
+            }
+            added |= entry.data.add(timestamp, valueScratch, 0, 1);
         }
-        return result;
+        return added;
     }
 
-    private static long readLittleEndianLong(DataInputStream dis, int bytes) throws IOException {
-        long result = 0L;
-        for (int i = 0; i < bytes; i++) {
-            result |= ((long) dis.readUnsignedByte() << (i * 8));
+    private static boolean isStateEntry(String name, String type) {
+        if (name.equals(DS_ENABLED) || name.equals(DS_AUTONOMOUS) || name.equals(DS_TEST)) {
+            return type.equals("boolean");
         }
-        return result;
+        return name.endsWith(CONTROL_MODE_SUFFIX) && (type.equals("string") || type.equals("string[]"));
     }
 
-    private static Map<String, SysIDResults> performAnalysis() {
-        Map<String, SysIDResults> results = new HashMap<>();
-        Set<String> groups = findGroups();
-        System.out.println("Found " + groups.size() + " unique motor names to analyze.");
+    private void addEntryFromControlRecord(ByteBuffer payload) {
+        if (payload.remaining() < 1) return;
+        int recordType = payload.get() & 0xFF;
+        // Skip other control records (Finish, SetMetadata, etc.)
+        if (recordType != 0 || payload.remaining() < 8) return;
+
+        // Start Record
+        int entryId = payload.getInt();
+        String name = readString(payload);
+        String type = readString(payload);
+        String metadata = readString(payload);
+        if (name == null || type == null || metadata == null) return;
+
+        if (type.equals(MOTOR_SAMPLE_TYPE)) {
+            entries.putIfAbsent(entryId, new ArrayList<>());
+            entries.get(entryId).add(new EntryDescription(name.trim(), type));
+            return;
+        }
+
+        String[] names = name.split(" \\| ");
+        String[] metas = metadata.split(" \\| ");
         
-        for (String group : groups) {
-            SysIDResults result = analyzeGroup(group);
+        for (int i = 0; i < names.length; i++) {
+            String currentName = names[i].trim();
+            String currentMeta = (i < metas.length) ? metas[i].trim() : "";
+
+            if (currentMeta.contains("motor")) {
+                entries.putIfAbsent(entryId, new ArrayList<>());
+                entries.get(entryId).add(new EntryDescription(currentName, type));
+            } else if (isStateEntry(currentName, type)) {
+                entries.putIfAbsent(entryId, new ArrayList<>());
+                entries.get(entryId).add(EntryDescription.state(currentName, type, i));
+            }
+        }
+    }
+
+    // Reads a length prefixed UTF-8 string, null if it is cut off
+    private static String readString(ByteBuffer payload) {
+        if (payload.remaining() < 4) return null;
+        int length = payload.getInt();
+        if (length < 0 || length > payload.remaining()) return null;
+        ByteBuffer bytes = payload.slice(payload.position(), length);
+        payload.position(payload.position() + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private static long readLittleEndian(ByteBuffer buffer, int bytes) {
+        switch (bytes) {
+            case 1: return buffer.get() & 0xFFL;
+            case 2: return buffer.getShort() & 0xFFFFL;
+            case 4: return buffer.getInt() & 0xFFFFFFFFL;
+            case 8: return buffer.getLong();
+            default:
+                long result = 0L;
+                for (int i = 0; i < bytes; i++) {
+                    result |= (buffer.get() & 0xFFL) << (i * 8);
+                }
+                return result;
+        }
+    }
+
+    private Map<String, SysIDResults> performAnalysis() {
+        Map<String, List<SampleColumns>> groups = indexGroups();
+        System.out.println("Found " + groups.size() + " unique motor names to analyze.");
+        Map<String, EntryDescription> states = indexStates();
+        TimeWindows baseWindows = windows.intersect(modeWindows(states));
+
+        // groups share no data, each one is analyzed on its own ForkJoinPool task
+        Map<String, SysIDResults> results = new ConcurrentHashMap<>();
+        AtomicInteger done = new AtomicInteger();
+        groups.entrySet().parallelStream().forEach(group -> {
+            if (progress.isCancelled()) return;
+            TimeWindows groupWindows = controlModeWindows(states, group.getKey(), baseWindows);
+            SysIDResults result = analyzeGroup(group.getValue(), groupWindows);
             if (result != null) {
-                results.put(group, result);
-                // System.out.println("SUCCESS: Analyzed " + group);
+                results.put(group.getKey(), result);
             } else {
-                System.out.println("WARNING: No valid data for " + group);
+                System.out.println("WARNING: No valid data for " + group.getKey());
             }
+            progress.groupAnalyzed(group.getKey(), result, done.incrementAndGet(), groups.size());
+        });
+        if (progress.isCancelled()) {
+            throw new CancellationException("Analysis of " + fileName + " cancelled");
         }
         return results;
     }
 
-    private static Set<String> findGroups() {
-        Set<String> groups = new HashSet<>();
+    // Maps each motor name to the columns of its entries, in one pass over the entries
+    private Map<String, List<SampleColumns>> indexGroups() {
+        Map<String, List<SampleColumns>> groups = new HashMap<>();
         for (List<EntryDescription> list : entries.values()) {
             for (EntryDescription entry : list) {
-                groups.add(entry.name);
+                if (entry.isState) continue;
+                List<SampleColumns> columns = groups.computeIfAbsent(entry.name, k -> new ArrayList<>());
+                if (entry.data.size > 0) {
+                    columns.add(entry.data);
+                }
             }
         }
         return groups;
     }
 
-    private static SysIDResults analyzeGroup(String name) {
-        List<DataPoint> allData = new ArrayList<>();
-
+    // Maps each state name to its entry, sorted by time for the window search
+    private Map<String, EntryDescription> indexStates() {
+        Map<String, EntryDescription> states = new HashMap<>();
         for (List<EntryDescription> list : entries.values()) {
             for (EntryDescription entry : list) {
-                if (entry.name.equals(name)) {
-                    allData.addAll(entry.data);
-                }
+                if (!entry.isState || entry.data.size == 0) continue;
+                entry.data.sortByTime();
+                states.put(entry.name, entry);
             }
         }
+        return states;
+    }
 
-        if (allData.isEmpty()) {
-            return null;
+    // A missing state counts as 0, so a log without DS:test is never in test
+    private static TimeWindows stateWindows(EntryDescription state, DoublePredicate inside) {
+        if (state == null) {
+            return inside.test(0) ? TimeWindows.all() : new TimeWindows();
         }
+        return TimeWindows.fromStates(state.data.timestamps, state.data.fields[0], state.data.size, inside);
+    }
 
-        allData.sort((p1, p2) -> Long.compare(p1.timestamp, p2.timestamp));
+    private TimeWindows modeWindows(Map<String, EntryDescription> states) {
+        if (mode == Mode.ALL) return TimeWindows.all();
+        if (!states.containsKey(DS_ENABLED)) {
+            System.out.println("WARNING: No " + DS_ENABLED + " entry in the log, analyzing every mode");
+            return TimeWindows.all();
+        }
+        TimeWindows enabled = stateWindows(states.get(DS_ENABLED), v -> v != 0);
+        switch (mode) {
+            case AUTONOMOUS:
+                return enabled.intersect(stateWindows(states.get(DS_AUTONOMOUS), v -> v != 0));
+            case TEST:
+                return enabled.intersect(stateWindows(states.get(DS_TEST), v -> v != 0));
+            case TELEOP:
+                return enabled.intersect(stateWindows(states.get(DS_AUTONOMOUS), v -> v == 0))
+                    .intersect(stateWindows(states.get(DS_TEST), v -> v == 0));
+            default:
+                return enabled;
+        }
+    }
 
-        List<SyncedDataPoint> syncedData = synchronizeData(allData);
-        return performSysIdLikeAnalysis(syncedData);
+    private TimeWindows controlModeWindows(Map<String, EntryDescription> states, String motor, TimeWindows base) {
+        if (controlModes.isEmpty()) return base;
+        EntryDescription state = states.get(motor + CONTROL_MODE_SUFFIX);
+        if (state == null || state.labels == null) return base;
+        return base.intersect(stateWindows(state, v -> controlModes.contains(state.labels.get((int) v))));
     }
 
-    public static class SyncedDataPoint {
-        double velocity, position, acceleration, rawAcceleration, voltage;
-        long timestamp;
-        SyncedDataPoint prev;
+    private static SysIDResults analyzeGroup(List<SampleColumns> columns, TimeWindows windows) {
+        if (columns.isEmpty()) {
+            return null;
+        }
+        for (SampleColumns column : columns) {
+            column.sortByTime();
+        }
+
+        SyncedData syncedData = synchronizeData(SampleColumns.merge(columns));
+        if (syncedData == null) return performSysIdLikeAnalysis(null, null);
+        return performSysIdLikeAnalysis(syncedData, windows.indexRanges(syncedData.timestamp, syncedData.size));
+    }
 
-        SyncedDataPoint(double velocity, double position, double acceleration, double voltage, long timestamp) {
-            this.velocity = velocity;
-            this.position = position;
-            this.acceleration = acceleration;
-            this.voltage = voltage;
-            this.timestamp = timestamp;
+    /**
+     * Samples of one motor in time order, one array per value. The previous sample of
+     * index i is i - 1.
+     */
+    public static class SyncedData {
+        double[] velocity, position, acceleration, rawAcceleration, voltage;
+        long[] timestamp;
+        int size;
+
+        SyncedData(SampleColumns columns) {
+            size = columns.size;
+            timestamp = columns.timestamps;
+            // Assumption: [Position, Velocity, Acceleration, Voltage] are fields 0,1,2,3
+            position = columns.fields[0];
+            velocity = columns.fields[1];
+            rawAcceleration = columns.fields[2];
+            voltage = columns.fields[3];
+            acceleration = new double[size];
         }
     }
 
-    private static List<SyncedDataPoint> synchronizeData(List<DataPoint> dataPoints) {
-        List<SyncedDataPoint> result = new ArrayList<>();
-        for (DataPoint dp : dataPoints) {
-            // Validate array length before accessing indices
-            if (dp.value.length >= 4) {
-                // Assumption: [Position, Velocity, Acceleration, Voltage] are indices 0,1,2,3
-                result.add(new SyncedDataPoint(dp.value[1], dp.value[0], dp.value[2], dp.value[3], dp.timestamp));
-            }
+    private static SyncedData synchronizeData(SampleColumns columns) {
+        // Validate the number of fields before accessing them
+        if (columns.fieldCount() < 4) {
+            return null;
         }
-        updateAccelerationAndMinPower(result);
+        SyncedData result = new SyncedData(columns);
+        updateAcceleration(result);
         return result;
     }
 
-    private static void updateAccelerationAndMinPower(List<SyncedDataPoint> data) {
-        minPowerToMove = Double.MAX_VALUE;
-        SyncedDataPoint prev = null;
-        for (SyncedDataPoint m : data) {
-            m.rawAcceleration = m.acceleration;
-            if (prev != null) {
-                double deltaTime = (m.timestamp - prev.timestamp) / 1000000.0;
+    private static void updateAcceleration(SyncedData data) {
+        for (int i = 0; i < data.size; i++) {
+            data.acceleration[i] = data.rawAcceleration[i];
+            if (i > 0) {
+                double deltaTime = (data.timestamp[i] - data.timestamp[i - 1]) / 1000000.0;
                 if (deltaTime <= 0) deltaTime = 1e-6;
-                double acc = (m.velocity - prev.velocity) / deltaTime;
-                m.acceleration = (m.acceleration * deltaTime + acc * 0.02) / (deltaTime + 0.02);
+                double acc = (data.velocity[i] - data.velocity[i - 1]) / deltaTime;
+                data.acceleration[i] = (data.rawAcceleration[i] * deltaTime + acc * 0.02) / (deltaTime + 0.02);
+            }
+        }
+    }
 
-                double absVolt = Math.abs(m.voltage);
-                if (prev.velocity == 0 && m.velocity != 0 && absVolt > 0.01 && 
-                    (m.velocity * m.voltage) > 0 && absVolt < minPowerToMove) {
+    /*
+     * The lowest voltage that started the motor moving, the kS of every bucket. Only starts
+     * inside the ranges count, the first sample of a range has no previous sample in it.
+     */
+    private static double minPowerToMove(SyncedData data, int[] ranges) {
+        double minPowerToMove = Double.MAX_VALUE;
+        for (int k = 0; k < ranges.length; k += 2) {
+            for (int i = ranges[k] + 1; i < ranges[k + 1]; i++) {
+                double absVolt = Math.abs(data.voltage[i]);
+                if (data.velocity[i - 1] == 0 && data.velocity[i] != 0 && absVolt > 0.01 && 
+                    (data.velocity[i] * data.voltage[i]) > 0 && absVolt < minPowerToMove) {
                     minPowerToMove = absVolt;
                 }
             }
-            m.prev = prev;
-            prev = m;
         }
-        if (minPowerToMove == Double.MAX_VALUE) minPowerToMove = 0.0;
+        return minPowerToMove == Double.MAX_VALUE ? 0.0 : minPowerToMove;
     }
 
     public static class BucketResult {
@@ -386,98 +709,77 @@ public class LogReader {
         }
     }
 
-    private static SysIDResults performSysIdLikeAnalysis(List<SyncedDataPoint> data) {
-        if (data.isEmpty()) return new SysIDResults(null, null, null);
+    // ranges are pairs of first and end index of the samples to fit, see TimeWindows.indexRanges
+    private static SysIDResults performSysIdLikeAnalysis(SyncedData data, int[] ranges) {
+        if (data == null || data.size == 0 || ranges.length == 0) return new SysIDResults(null, null, null);
 
         double maxV = 0.0;
-        for (SyncedDataPoint m : data) {
-            maxV = Math.max(maxV, Math.abs(m.velocity));
+        for (int k = 0; k < ranges.length; k += 2) {
+            for (int i = ranges[k]; i < ranges[k + 1]; i++) {
+                maxV = Math.max(maxV, Math.abs(data.velocity[i]));
+            }
         }
 
+        // the buckets depend on the max velocity, so the fit streams over the columns
+        // once to accumulate and once more for the error statistics
         double[] vRange = new double[]{maxV * 0.3, maxV * 0.7, maxV};
-        List<SyncedDataPoint> slow = new ArrayList<>();
-        List<SyncedDataPoint> mid = new ArrayList<>();
-        List<SyncedDataPoint> high = new ArrayList<>();
+        StreamingLeastSquares[] buckets = {
+            new StreamingLeastSquares(), new StreamingLeastSquares(), new StreamingLeastSquares()
+        };
+
+        // the first sample of a range is skipped, its previous sample is outside the window
+        for (int k = 0; k < ranges.length; k += 2) {
+            for (int i = ranges[k] + 1; i < ranges[k + 1]; i++) {
+                int r = rangeBucket(data, i, vRange);
+                if (r >= 0) {
+                    buckets[r].add(Math.signum(data.velocity[i]), data.velocity[i], data.acceleration[i], data.voltage[i]);
+                }
+            }
+        }
+
+        boolean[] solved = new boolean[3];
+        for (int r = 0; r < 3; r++) {
+            solved[r] = buckets[r].getCount() > 50 && buckets[r].solve() != null;
+        }
 
-        for (SyncedDataPoint d : data) {
-            int r = rangeBucket(d, vRange);
-            if (r == 0) slow.add(d);
-            else if (r == 1) mid.add(d);
-            else if (r == 2) high.add(d);
+        for (int k = 0; k < ranges.length; k += 2) {
+            for (int i = ranges[k] + 1; i < ranges[k + 1]; i++) {
+                int r = rangeBucket(data, i, vRange);
+                if (r >= 0 && solved[r]) {
+                    buckets[r].addError(Math.signum(data.velocity[i]), data.velocity[i], data.acceleration[i], data.voltage[i]);
+                }
+            }
         }
 
-        BucketResult slowR = solveBucket(slow);
-        BucketResult midR = solveBucket(mid);
-        BucketResult highR = solveBucket(high);
+        double minPowerToMove = minPowerToMove(data, ranges);
+        BucketResult slowR = solved[0] ? toBucketResult(buckets[0], minPowerToMove) : null;
+        BucketResult midR = solved[1] ? toBucketResult(buckets[1], minPowerToMove) : null;
+        BucketResult highR = solved[2] ? toBucketResult(buckets[2], minPowerToMove) : null;
 
         return new SysIDResults(slowR, midR, highR);
     }
 
-    private static int rangeBucket(SyncedDataPoint d, double[] vRange) {
-        double vAbs = Math.abs(d.velocity);
-        int i = vAbs < vRange[0] ? 0 : (vAbs < vRange[1] ? 1 : 2);
+    // i - 1 must be in the same range as i
+    private static int rangeBucket(SyncedData d, int i, double[] vRange) {
+        double vAbs = Math.abs(d.velocity[i]);
+        int r = vAbs < vRange[0] ? 0 : (vAbs < vRange[1] ? 1 : 2);
         
-        if (valid(vAbs, 0.1) && valid(d.voltage, 0.05)) {
-            if (d.prev != null) {
-                if (valid(Math.abs(d.prev.velocity), 0.1) && valid(Math.abs(d.prev.voltage), 0.2)) {
-                    return i;
-                } else {
-                    return -1;
-                }
-            } else {
-                return i;
-            }
-        } else {
-            return -1;
+        if (valid(vAbs, 0.1) && valid(d.voltage[i], 0.05)
+            && valid(Math.abs(d.velocity[i - 1]), 0.1) && valid(Math.abs(d.voltage[i - 1]), 0.2)) {
+            return r;
         }
+        return -1;
     }
 
     private static boolean valid(double val, double min) {
         return Math.abs(val) > min;
     }
 
-    private static BucketResult solveBucket(List<SyncedDataPoint> arr) {
-        if (arr == null || arr.size() <= 50) return null;
-        
-        int rows = arr.size();
-        SimpleMatrix mat = new SimpleMatrix(rows, 3);
-        SimpleMatrix volt = new SimpleMatrix(rows, 1);
-        
-        for (int r = 0; r < rows; r++) {
-            SyncedDataPoint d = arr.get(r);
-            mat.set(r, 0, Math.signum(d.velocity));
-            mat.set(r, 1, d.velocity);
-            mat.set(r, 2, d.acceleration);
-            volt.set(r, 0, d.voltage);
-        }
-        
-        try {
-            SimpleMatrix res = mat.solve(volt);
-            SimpleMatrix pred = mat.mult(res);
-            SimpleMatrix error = volt.minus(pred);
-            
-            double maxError = 0;
-            double sumError = 0;
-            int validCount = 0;
-            
-            for (int i = 0; i < rows; i++) {
-                SyncedDataPoint d = arr.get(i);
-                if (Math.abs(d.voltage) > 0.001) {
-                    double relError = Math.abs(error.get(i, 0) / d.voltage);
-                    sumError += relError;
-                    maxError = Math.max(maxError, relError);
-                    validCount++;
-                }
-            }
-            double avgError = validCount > 0 ? sumError / validCount : 0;
-            
-            double kp = CalculateFeedbackGains.calculateFeedbackGains(res.get(1, 0), res.get(2, 0));
-            
-            return new BucketResult(minPowerToMove, res.get(1, 0), res.get(2, 0), kp, avgError, maxError, rows);
-        } catch (Exception e) {
-            System.err.println("Error solving bucket: " + e.getMessage());
-            return null;
-        }
+    private static BucketResult toBucketResult(StreamingLeastSquares bucket, double minPowerToMove) {
+        double[] res = bucket.getSolution();
+        double kp = CalculateFeedbackGains.calculateFeedbackGains(res[1], res[2]);
+        return new BucketResult(minPowerToMove, res[1], res[2], kp,
+            bucket.getAverageError(), bucket.getMaxError(), bucket.getCount());
     }
 
     public static class CalculateFeedbackGains {
@@ -0,0 +1,114 @@
+package frc.demacia.SysID;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Samples of one log entry stored by column.
+ *
+ * <p>Timestamps are kept in a growable {@code long[]} and every value of the sample in its
+ * own {@code double[]}, so a sample costs 8 bytes per field instead of an object with a
+ * cloned array. The number of fields is set by the first sample.</p>
+ */
+class SampleColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    long[] timestamps = new long[INITIAL_CAPACITY];
+    double[][] fields = null;
+    int size = 0;
+
+    int fieldCount() {
+        return fields == null ? 0 : fields.length;
+    }
+
+    /**
+     * Adds a sample made of count values starting at offset. Samples with a different
+     * number of values than the first one are ignored.
+     */
+    boolean add(long timestamp, double[] values, int offset, int count) {
+        if (fields == null) {
+            fields = new double[count][timestamps.length];
+        } else if (count != fields.length) {
+            return false;
+        }
+        if (size == timestamps.length) {
+            grow(size * 2);
+        }
+        timestamps[size] = timestamp;
+        for (int f = 0; f < count; f++) {
+            fields[f][size] = values[offset + f];
+        }
+        size++;
+        return true;
+    }
+
+    private void grow(int capacity) {
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        for (int f = 0; f < fields.length; f++) {
+            fields[f] = Arrays.copyOf(fields[f], capacity);
+        }
+    }
+
+    /**
+     * Sorts the samples by timestamp. Log records are almost in order, so this is an
+     * insertion sort that is linear for sorted data.
+     */
+    void sortByTime() {
+        int fieldCount = fieldCount();
+        double[] moving = new double[fieldCount];
+        for (int i = 1; i < size; i++) {
+            long time = timestamps[i];
+            if (time >= timestamps[i - 1]) continue;
+
+            for (int f = 0; f < fieldCount; f++) moving[f] = fields[f][i];
+            int j = i - 1;
+            while (j >= 0 && timestamps[j] > time) {
+                timestamps[j + 1] = timestamps[j];
+                for (int f = 0; f < fieldCount; f++) fields[f][j + 1] = fields[f][j];
+                j--;
+            }
+            timestamps[j + 1] = time;
+            for (int f = 0; f < fieldCount; f++) fields[f][j + 1] = moving[f];
+        }
+    }
+
+    /**
+     * Merges sorted columns with the same fields into one sorted column.
+     */
+    static SampleColumns merge(List<SampleColumns> columns) {
+        if (columns.size() == 1) return columns.get(0);
+
+        int fieldCount = 0;
+        int total = 0;
+        for (SampleColumns c : columns) {
+            if (c.size == 0) continue;
+            if (fieldCount == 0) fieldCount = c.fieldCount();
+            if (c.fieldCount() == fieldCount) total += c.size;
+        }
+
+        SampleColumns merged = new SampleColumns();
+        merged.timestamps = new long[Math.max(1, total)];
+        merged.fields = new double[fieldCount][Math.max(1, total)];
+
+        int[] cursors = new int[columns.size()];
+        while (merged.size < total) {
+            int next = -1;
+            for (int c = 0; c < columns.size(); c++) {
+                SampleColumns column = columns.get(c);
+                if (cursors[c] < column.size && column.fieldCount() == fieldCount
+                    && (next == -1 || column.timestamps[cursors[c]] < columns.get(next).timestamps[cursors[next]])) {
+                    next = c;
+                }
+            }
+            SampleColumns from = columns.get(next);
+            int i = cursors[next]++;
+            merged.timestamps[merged.size] = from.timestamps[i];
+            for (int f = 0; f < fieldCount; f++) {
+                merged.fields[f][merged.size] = from.fields[f][i];
+            }
+            merged.size++;
+        }
+        return merged;
+    }
+}
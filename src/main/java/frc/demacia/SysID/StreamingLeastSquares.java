@@ -0,0 +1,111 @@
+package frc.demacia.SysID;
+
+/**
+ * Least squares fit of {@code y = b0*x0 + b1*x1 + b2*x2} in constant memory.
+ *
+ * <p>Samples are added one at a time into the 3x3 normal-equation matrix {@code X^T X} and the
+ * right hand side {@code X^T y}, so the number of samples does not change the memory used.
+ * After {@link #solve()}, a second pass with {@link #addError} collects the relative
+ * error statistics of the fit.</p>
+ */
+class StreamingLeastSquares {
+
+    private final double[][] xtx = new double[3][3];
+    private final double[] xty = new double[3];
+    private int count = 0;
+
+    private double[] solution = null;
+
+    private double sumError = 0;
+    private double maxError = 0;
+    private int errorCount = 0;
+
+    void add(double x0, double x1, double x2, double y) {
+        xtx[0][0] += x0 * x0;
+        xtx[0][1] += x0 * x1;
+        xtx[0][2] += x0 * x2;
+        xtx[1][1] += x1 * x1;
+        xtx[1][2] += x1 * x2;
+        xtx[2][2] += x2 * x2;
+        xty[0] += x0 * y;
+        xty[1] += x1 * y;
+        xty[2] += x2 * y;
+        count++;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Solves the normal equations with Gaussian elimination and partial pivoting.
+     *
+     * @return the coefficients, or null if the samples do not determine them
+     */
+    double[] solve() {
+        double[][] a = new double[3][4];
+        double scale = 0;
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                a[r][c] = c >= r ? xtx[r][c] : xtx[c][r];
+                scale = Math.max(scale, Math.abs(a[r][c]));
+            }
+            a[r][3] = xty[r];
+        }
+        if (scale == 0) return null;
+
+        for (int col = 0; col < 3; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < 3; r++) {
+                if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) pivot = r;
+            }
+            if (Math.abs(a[pivot][col]) < 1e-12 * scale) return null;
+            double[] tmp = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmp;
+
+            for (int r = col + 1; r < 3; r++) {
+                double factor = a[r][col] / a[col][col];
+                for (int c = col; c < 4; c++) {
+                    a[r][c] -= factor * a[col][c];
+                }
+            }
+        }
+
+        double[] b = new double[3];
+        for (int r = 2; r >= 0; r--) {
+            double sum = a[r][3];
+            for (int c = r + 1; c < 3; c++) {
+                sum -= a[r][c] * b[c];
+            }
+            b[r] = sum / a[r][r];
+        }
+        solution = b;
+        return b;
+    }
+
+    double[] getSolution() {
+        return solution;
+    }
+
+    /**
+     * Adds a sample to the error statistics of the solved fit. Samples with |y| near zero
+     * have no meaningful relative error and are skipped.
+     */
+    void addError(double x0, double x1, double x2, double y) {
+        if (solution == null || Math.abs(y) <= 0.001) return;
+        double predicted = solution[0] * x0 + solution[1] * x1 + solution[2] * x2;
+        double relError = Math.abs((y - predicted) / y);
+        sumError += relError;
+        maxError = Math.max(maxError, relError);
+        errorCount++;
+    }
+
+    double getAverageError() {
+        return errorCount > 0 ? sumError / errorCount : 0;
+    }
+
+    double getMaxError() {
+        return maxError;
+    }
+}
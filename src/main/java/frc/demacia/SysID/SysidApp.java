@@ -7,6 +7,8 @@ import java.awt.event.*;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 public class SysidApp {
@@ -24,7 +26,9 @@ class Sysid implements Consumer<File> {
     SysidResultPanel result = new SysidResultPanel(this);
     JTextArea msgArea = new JTextArea();
     JScrollPane msgPane = new JScrollPane(msgArea, JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+    JButton cancelButton = new JButton("Cancel");
     Map<String, LogReader.SysIDResults> analysisResults;
+    LoadWorker loader = null;
 
     private static Sysid sysid = null;
 
@@ -50,6 +54,12 @@ class Sysid implements Consumer<File> {
             }
         });
         
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (loader != null) loader.cancel(true);
+        });
+        fileChooser.add(cancelButton);
+
         pane.add(fileChooser, new GridBagConstraints(0, 0, 1, 1, 1, 1, GridBagConstraints.CENTER, GridBagConstraints.HORIZONTAL, new Insets(5, 5, 5, 0), 5, 5));
         pane.add(motorList, new GridBagConstraints(0, 1, 1, 1, 1, 1, GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 0), 5, 5));
         pane.add(msgPane, new GridBagConstraints(1, 0, 1, 1, 1, 1, GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 0), 5, 5));
@@ -71,33 +81,88 @@ class Sysid implements Consumer<File> {
     @Override
     public void accept(File file) {
         System.out.println("File set to " + file);
-        try {
-            MotorData.motors.clear();
-            listModel.clear();
-            
-            analysisResults = LogReader.getResult(file.getAbsolutePath());
-            
-            msg("Found " + analysisResults.size() + " motor groups in analysis");
-            
-            for(String groupName : analysisResults.keySet()) {
-                MotorData motorData = new MotorData();
-                motorData.name = groupName;
-                motorData.sysidResult = analysisResults.get(groupName);
-                MotorData.motors.add(motorData);
-                listModel.addElement(motorData);
-                msg("Added motor: " + groupName);
+        if (loader != null) {
+            loader.cancel(true);
+        }
+        MotorData.motors.clear();
+        listModel.clear();
+        analysisResults = null;
+
+        msg("Loading " + file.getName() + "...");
+        loader = new LoadWorker(file);
+        cancelButton.setEnabled(true);
+        loader.execute();
+    }
+
+    /**
+     * Reads and analyzes a log off the event thread. Progress messages and finished motors
+     * are published as they come and added to msgArea and motorList on the event thread.
+     */
+    class LoadWorker extends SwingWorker<Map<String, LogReader.SysIDResults>, Object> implements LogReader.Progress {
+        final File file;
+
+        LoadWorker(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected Map<String, LogReader.SysIDResults> doInBackground() throws Exception {
+            return new LogReader(file.getAbsolutePath()).analyze(this);
+        }
+
+        @Override
+        public void recordsScanned(int records, long position, long size) {
+            setProgress((int) (position * 100 / Math.max(1, size)));
+            publish(String.format("Scanned %d records (%d%%)", records, position * 100 / Math.max(1, size)));
+        }
+
+        @Override
+        public void groupAnalyzed(String name, LogReader.SysIDResults result, int done, int total) {
+            if (result == null) {
+                publish("No valid data for " + name + " (" + done + "/" + total + ")");
+                return;
             }
-            
-            msg("File " + file.getName() + " loaded with " + MotorData.motors.size() + " motors");
-            
-            if (!listModel.isEmpty()) {
-                motorList.setSelectedIndex(0);
+            MotorData motorData = new MotorData();
+            motorData.name = name;
+            motorData.sysidResult = result;
+            publish(motorData);
+            publish("Analyzed " + name + " (" + done + "/" + total + ")");
+        }
+
+        @Override
+        protected void process(List<Object> chunks) {
+            // a newer load may have started, its lists must not get this file's motors
+            if (loader != this) return;
+            for (Object chunk : chunks) {
+                if (chunk instanceof MotorData) {
+                    MotorData motorData = (MotorData) chunk;
+                    MotorData.motors.add(motorData);
+                    listModel.addElement(motorData);
+                    if (listModel.size() == 1) {
+                        motorList.setSelectedIndex(0);
+                    }
+                } else {
+                    msg(chunk.toString());
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (loader != this) return;
+            loader = null;
+            cancelButton.setEnabled(false);
+            try {
+                analysisResults = get();
+                msg("File " + file.getName() + " loaded with " + MotorData.motors.size() + " motors");
+            } catch (CancellationException e) {
+                msg("Loading " + file.getName() + " cancelled");
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                msg("IO error - for file " + file + " error=" + cause);
+                cause.printStackTrace();
+                fileChooser.field.setText("");
             }
-            
-        } catch (Exception e) {
-            msg("IO error - for file " + file + " error=" + e);
-            e.printStackTrace();
-            fileChooser.field.setText("");
         }
     }
 
@@ -0,0 +1,264 @@
+package frc.demacia.SysID;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Headless SysID over many logs.
+ *
+ * <pre>
+ * SysidBatch &lt;dir | file | glob&gt; [--format csv|json] [--out file] [--pid]
+ *            [--mode ALL|ENABLED|AUTONOMOUS|TELEOP|TEST] [--control-mode name] [--window start:end]
+ *
+ * SysidBatch logs/                       every .wpilog in logs, csv to stdout
+ * SysidBatch "logs/Q*.wpilog" --format json --out gains.json
+ * SysidBatch logs/ --pid                 withPID(...) lines for BaseMotorConfig
+ * SysidBatch logs/ --mode TEST --control-mode VoltageOut
+ * </pre>
+ *
+ * <p>Every file is analyzed by its own {@link LogReader}, in parallel. The output has one
+ * row per file, motor and velocity bucket, sorted by file and motor.</p>
+ */
+public class SysidBatch {
+
+    private static final String[] BUCKETS = {"slow", "mid", "high"};
+
+    private static final String USAGE = "usage: SysidBatch <dir | file | glob> [--format csv|json] [--out file] [--pid]"
+        + " [--mode ALL|ENABLED|AUTONOMOUS|TELEOP|TEST] [--control-mode name] [--window start:end]";
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            usage(args.length == 0 ? null : "The first argument must be the logs to analyze");
+        }
+
+        String format = "csv";
+        String out = null;
+        boolean pid = false;
+        LogReader.Mode mode = LogReader.Mode.ALL;
+        List<String> controlModes = new ArrayList<>();
+        TimeWindows windows = null;
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            switch (option) {
+                case "--format":
+                    format = value(args, ++i, option);
+                    if (!format.equals("csv") && !format.equals("json")) {
+                        usage("Unknown format " + format);
+                    }
+                    break;
+                case "--out":
+                    out = value(args, ++i, option);
+                    break;
+                case "--pid":
+                    pid = true;
+                    break;
+                case "--mode":
+                    mode = parseMode(value(args, ++i, option));
+                    break;
+                case "--control-mode":
+                    controlModes.add(value(args, ++i, option));
+                    break;
+                case "--window":
+                    if (windows == null) windows = new TimeWindows();
+                    addWindow(windows, value(args, ++i, option));
+                    break;
+                default:
+                    usage("Unknown option " + option);
+            }
+        }
+
+        try {
+            List<Path> files = findLogs(args[0]);
+            if (files.isEmpty()) {
+                System.err.println("No .wpilog files found for " + args[0]);
+                System.exit(1);
+            }
+            System.err.println("Analyzing " + files.size() + " logs");
+
+            LogReader.Mode readerMode = mode;
+            TimeWindows readerWindows = windows != null ? windows : TimeWindows.all();
+            String[] readerControlModes = controlModes.toArray(new String[0]);
+            Map<String, Map<String, LogReader.SysIDResults>> results = analyze(files,
+                file -> new LogReader(file).withMode(readerMode).withWindows(readerWindows)
+                    .withControlModes(readerControlModes));
+
+            try (PrintStream stream = out == null ? System.out : new PrintStream(Files.newOutputStream(Paths.get(out)))) {
+                if (pid) {
+                    writePid(results, stream);
+                } else if (format.equals("json")) {
+                    writeJson(results, stream);
+                } else {
+                    writeCsv(results, stream);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // prints the error and the usage and exits with 1
+    private static void usage(String error) {
+        if (error != null) System.err.println(error);
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length || args[i].startsWith("--")) {
+            usage(option + " needs a value");
+        }
+        return args[i];
+    }
+
+    private static LogReader.Mode parseMode(String name) {
+        for (LogReader.Mode mode : LogReader.Mode.values()) {
+            if (mode.name().equalsIgnoreCase(name)) return mode;
+        }
+        usage("Unknown mode " + name);
+        return null;
+    }
+
+    // start:end in log seconds
+    private static void addWindow(TimeWindows windows, String range) {
+        String[] parts = range.split(":");
+        if (parts.length != 2) {
+            usage("--window must be start:end, got " + range);
+        }
+        try {
+            double start = Double.parseDouble(parts[0]);
+            double end = Double.parseDouble(parts[1]);
+            if (!(end > start)) {
+                usage("--window end must be after start, got " + range);
+            }
+            windows.add(start, end);
+        } catch (NumberFormatException e) {
+            usage("--window must be start:end in seconds, got " + range);
+        }
+    }
+
+    /**
+     * Finds the logs of a directory, a single file or a glob such as {@code logs/*.wpilog}.
+     */
+    static List<Path> findLogs(String pattern) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!pattern.contains("*") && !pattern.contains("?")) {
+            Path path = Paths.get(pattern);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.wpilog")) {
+                    stream.forEach(files::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                files.add(path);
+            }
+        } else {
+            // the wildcards are only supported in the file name
+            int split = Math.max(pattern.lastIndexOf('/'), pattern.lastIndexOf('\\'));
+            Path dir = Paths.get(split < 0 ? "." : pattern.substring(0, Math.max(1, split)));
+            String glob = pattern.substring(split + 1);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+                stream.forEach(files::add);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Analyzes the files in parallel. Files that fail to read are reported and skipped.
+     *
+     * @return results by file name, then by motor name
+     */
+    static Map<String, Map<String, LogReader.SysIDResults>> analyze(List<Path> files, Function<String, LogReader> readers) {
+        Map<String, Map<String, LogReader.SysIDResults>> results = new ConcurrentHashMap<>();
+        files.parallelStream().forEach(file -> {
+            try {
+                results.put(file.getFileName().toString(), new TreeMap<>(readers.apply(file.toString()).analyze()));
+            } catch (IOException e) {
+                System.err.println("Skipping " + file + ": " + e.getMessage());
+            }
+        });
+        return new TreeMap<>(results);
+    }
+
+    private static LogReader.BucketResult[] buckets(LogReader.SysIDResults result) {
+        return new LogReader.BucketResult[] {result.slow, result.mid, result.high};
+    }
+
+    static void writeCsv(Map<String, Map<String, LogReader.SysIDResults>> results, PrintStream out) {
+        out.println("file,motor,bucket,ks,kv,ka,kp,avgError,maxError,points");
+        for (var file : results.entrySet()) {
+            for (var motor : file.getValue().entrySet()) {
+                LogReader.BucketResult[] buckets = buckets(motor.getValue());
+                for (int b = 0; b < buckets.length; b++) {
+                    LogReader.BucketResult r = buckets[b];
+                    if (r == null) continue;
+                    out.printf("%s,%s,%s,%.6f,%.6f,%.6f,%.6f,%.4f,%.4f,%d%n", csv(file.getKey()), csv(motor.getKey()),
+                        BUCKETS[b], r.ks, r.kv, r.ka, r.kp, r.avgError, r.maxError, r.points);
+                }
+            }
+        }
+    }
+
+    static void writeJson(Map<String, Map<String, LogReader.SysIDResults>> results, PrintStream out) {
+        out.println("{");
+        int f = 0;
+        for (var file : results.entrySet()) {
+            out.printf("  \"%s\": {%n", json(file.getKey()));
+            int m = 0;
+            for (var motor : file.getValue().entrySet()) {
+                out.printf("    \"%s\": {", json(motor.getKey()));
+                LogReader.BucketResult[] buckets = buckets(motor.getValue());
+                boolean first = true;
+                for (int b = 0; b < buckets.length; b++) {
+                    LogReader.BucketResult r = buckets[b];
+                    if (r == null) continue;
+                    out.printf("%s%n      \"%s\": {\"ks\": %.6f, \"kv\": %.6f, \"ka\": %.6f, \"kp\": %.6f, "
+                        + "\"avgError\": %.4f, \"maxError\": %.4f, \"points\": %d}",
+                        first ? "" : ",", BUCKETS[b], r.ks, r.kv, r.ka, r.kp, r.avgError, r.maxError, r.points);
+                    first = false;
+                }
+                out.printf("%n    }%s%n", ++m < file.getValue().size() ? "," : "");
+            }
+            out.printf("  }%s%n", ++f < results.size() ? "," : "");
+        }
+        out.println("}");
+    }
+
+    /**
+     * Writes {@code withPID(kp, ki, kd, ks, kv, ka, kg)} lines for {@code BaseMotorConfig}, one per
+     * motor and bucket. ki, kd and kg are not identified and are left 0.
+     */
+    static void writePid(Map<String, Map<String, LogReader.SysIDResults>> results, PrintStream out) {
+        for (var file : results.entrySet()) {
+            out.println("// " + file.getKey());
+            for (var motor : file.getValue().entrySet()) {
+                LogReader.BucketResult[] buckets = buckets(motor.getValue());
+                for (int b = 0; b < buckets.length; b++) {
+                    LogReader.BucketResult r = buckets[b];
+                    if (r == null) continue;
+                    out.printf("// %s %s, %d points, avg error %.2f%%%n", motor.getKey(), BUCKETS[b], r.points, r.avgError * 100);
+                    out.printf(".withPID(%.5f, 0, 0, %.5f, %.5f, %.5f, 0)%n", r.kp, r.ks, r.kv, r.ka);
+                }
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    private static String json(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,155 @@
+package frc.demacia.SysID;
+
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+
+/**
+ * Sorted, non overlapping time ranges of a log, in microseconds like the log timestamps.
+ * A range includes its start and excludes its end.
+ *
+ * <pre>
+ * new LogReader(path).withWindows(new TimeWindows().add(12.5, 30).add(95, 120)).analyze();
+ * </pre>
+ *
+ * <p>{@link #indexRanges(long[], int)} finds the samples inside the windows with a binary
+ * search per window, so the analysis only visits the samples it uses.</p>
+ */
+public class TimeWindows {
+
+    private long[] starts = new long[4];
+    private long[] ends = new long[4];
+    private int size = 0;
+
+    /**
+     * @return a window that covers the whole log
+     */
+    public static TimeWindows all() {
+        return new TimeWindows().addMicros(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Adds a window. Windows that overlap are joined.
+     *
+     * @param startSeconds log time of the start of the window
+     * @param endSeconds log time of the end of the window
+     * @return this, for chaining
+     */
+    public TimeWindows add(double startSeconds, double endSeconds) {
+        return addMicros((long) (startSeconds * 1e6), (long) (endSeconds * 1e6));
+    }
+
+    TimeWindows addMicros(long start, long end) {
+        if (end <= start) return this;
+        int i = lowerBound(starts, size, start);
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        System.arraycopy(starts, i, starts, i + 1, size - i);
+        System.arraycopy(ends, i, ends, i + 1, size - i);
+        starts[i] = start;
+        ends[i] = end;
+        size++;
+
+        // join the windows that now overlap
+        int out = 0;
+        for (int j = 1; j < size; j++) {
+            if (starts[j] <= ends[out]) {
+                ends[out] = Math.max(ends[out], ends[j]);
+            } else {
+                out++;
+                starts[out] = starts[j];
+                ends[out] = ends[j];
+            }
+        }
+        size = out + 1;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Windows where a logged state is inside. Each sample holds until the next one and the
+     * last one holds until the end of the log.
+     *
+     * @param times sorted timestamps of the state
+     * @param values value of the state at each timestamp
+     * @param count number of samples
+     * @param inside which values make a window
+     */
+    static TimeWindows fromStates(long[] times, double[] values, int count, DoublePredicate inside) {
+        TimeWindows windows = new TimeWindows();
+        for (int i = 0; i < count; i++) {
+            if (!inside.test(values[i])) continue;
+            int end = i + 1;
+            while (end < count && inside.test(values[end])) end++;
+            windows.addMicros(times[i], end < count ? times[end] : Long.MAX_VALUE);
+            i = end - 1;
+        }
+        return windows;
+    }
+
+    /**
+     * @return the times that are in both this and other
+     */
+    public TimeWindows intersect(TimeWindows other) {
+        TimeWindows result = new TimeWindows();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            long start = Math.max(starts[i], other.starts[j]);
+            long end = Math.min(ends[i], other.ends[j]);
+            result.addMicros(start, end);
+            if (ends[i] < other.ends[j]) i++; else j++;
+        }
+        return result;
+    }
+
+    /**
+     * Index ranges of the samples inside the windows.
+     *
+     * @param timestamps sorted timestamps
+     * @param count number of timestamps
+     * @return pairs of first index and end index (exclusive), one pair per window with samples
+     */
+    int[] indexRanges(long[] timestamps, int count) {
+        int[] ranges = new int[size * 2];
+        int n = 0;
+        for (int w = 0; w < size; w++) {
+            int from = lowerBound(timestamps, count, starts[w]);
+            int to = lowerBound(timestamps, count, ends[w]);
+            if (to > from) {
+                ranges[n++] = from;
+                ranges[n++] = to;
+            }
+        }
+        return Arrays.copyOf(ranges, n);
+    }
+
+    // First index whose value is not less than key
+    static int lowerBound(long[] values, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format("[%.3f, %.3f)", starts[i] / 1e6, ends[i] / 1e6));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package frc.demacia.SysID;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offsets of the records of every entry id in a wpilog, with the first and last timestamp
+ * of each id. Control records are kept under id 0.
+ *
+ * <p>{@link LogReader} builds the index while it scans a log and saves it next to the log
+ * as {@code <log>.idx}, or in {@code ~/.sysid-cache/<fingerprint>.idx} when the log's
+ * directory is not writable. The next read seeks straight to the records of the motor
+ * entries. Offsets are stored as delta varints, usually one or two bytes per record.</p>
+ *
+ * <p>The index is matched to the log by a fingerprint of the file size and its first and
+ * last {@value #FINGERPRINT_BYTES} bytes, so a log that is still being written or was
+ * replaced is scanned again.</p>
+ */
+class WpilogIndex {
+
+    private static final int MAGIC = 0x58444957; // "WIDX"
+    private static final int VERSION = 1;
+    private static final int FINGERPRINT_BYTES = 64 * 1024;
+
+    static class Records {
+        int[] offsets = new int[64];
+        int size = 0;
+        long firstTimestamp = Long.MAX_VALUE;
+        long lastTimestamp = Long.MIN_VALUE;
+
+        void add(int offset, long timestamp) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+            firstTimestamp = Math.min(firstTimestamp, timestamp);
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+        }
+    }
+
+    private final String fingerprint;
+    private final Map<Integer, Records> records = new HashMap<>();
+
+    WpilogIndex(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    void add(int id, int offset, long timestamp) {
+        records.computeIfAbsent(id, k -> new Records()).add(offset, timestamp);
+    }
+
+    Set<Integer> ids() {
+        return records.keySet();
+    }
+
+    /**
+     * @return the records of an id in file order, null if the log has none
+     */
+    Records get(int id) {
+        return records.get(id);
+    }
+
+    /**
+     * Fingerprint of a log: SHA-1 of its size and its first and last {@value #FINGERPRINT_BYTES} bytes.
+     */
+    static String fingerprint(ByteBuffer log) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            int size = log.limit();
+            digest.update(ByteBuffer.allocate(8).putLong(0, size));
+            int head = Math.min(size, FINGERPRINT_BYTES);
+            digest.update(log.slice(0, head));
+            int tail = Math.max(head, size - FINGERPRINT_BYTES);
+            digest.update(log.slice(tail, size - tail));
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static Path sidecarPath(Path log) {
+        return Paths.get(log + ".idx");
+    }
+
+    private static Path cachePath(String fingerprint) {
+        return Paths.get(System.getProperty("user.home"), ".sysid-cache", fingerprint + ".idx");
+    }
+
+    /**
+     * Loads the index of a log from next to it or from the cache directory.
+     *
+     * @return the index, or null if there is none that matches the fingerprint
+     */
+    static WpilogIndex load(Path log, String fingerprint) {
+        for (Path path : new Path[] {sidecarPath(log), cachePath(fingerprint)}) {
+            if (!Files.isRegularFile(path)) continue;
+            try {
+                WpilogIndex index = read(path, fingerprint);
+                if (index != null) return index;
+            } catch (IOException e) {
+                System.out.println("Ignoring unreadable index " + path + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saves the index next to the log, or in the cache directory if that fails.
+     */
+    void save(Path log) {
+        Path sidecar = sidecarPath(log);
+        try {
+            write(sidecar);
+            return;
+        } catch (IOException e) {
+            System.out.println("Could not write " + sidecar + ", using the cache directory");
+        }
+        Path cache = cachePath(fingerprint);
+        try {
+            Files.createDirectories(cache.getParent());
+            write(cache);
+        } catch (IOException e) {
+            System.out.println("Could not save the log index: " + e.getMessage());
+        }
+    }
+
+    private void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(records.size());
+            for (Map.Entry<Integer, Records> entry : records.entrySet()) {
+                Records r = entry.getValue();
+                out.writeInt(entry.getKey());
+                out.writeLong(r.firstTimestamp);
+                out.writeLong(r.lastTimestamp);
+                out.writeInt(r.size);
+                int previous = 0;
+                for (int i = 0; i < r.size; i++) {
+                    writeVarint(out, r.offsets[i] - previous);
+                    previous = r.offsets[i];
+                }
+            }
+        }
+    }
+
+    private static WpilogIndex read(Path path, String fingerprint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(fingerprint)) {
+                return null;
+            }
+            WpilogIndex index = new WpilogIndex(fingerprint);
+            int ids = in.readInt();
+            for (int i = 0; i < ids; i++) {
+                Records r = new Records();
+                int id = in.readInt();
+                r.firstTimestamp = in.readLong();
+                r.lastTimestamp = in.readLong();
+                r.size = in.readInt();
+                r.offsets = new int[Math.max(1, r.size)];
+                int offset = 0;
+                for (int j = 0; j < r.size; j++) {
+                    offset += readVarint(in);
+                    r.offsets[j] = offset;
+                }
+                index.records.put(id, r);
+            }
+            return index;
+        }
+    }
+
+    // Offsets only grow, so the deltas are never negative
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed index");
+    }
+}
@@ -0,0 +1,325 @@
+package frc.demacia.utils;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+/**
+ * {@link Data} specialized for boolean values.
+ *
+ * <p>Values are kept only in a {@code boolean[]}, so {@link #refresh()} never boxes and
+ * never uses reflection. Sources are boolean status signals, {@link BooleanSupplier}s or a
+ * single {@code boolean[]} supplier.</p>
+ *
+ * <pre>
+ * BooleanData triggered = BooleanData.of(limitSwitch::get);
+ * boolean value = triggered.getAsBoolean();
+ * </pre>
+ *
+ * <p>Signal and {@link BooleanSupplier} based data can be merged into a category log entry,
+ * data of an array supplier is always logged as its own entry.</p>
+ */
+public class BooleanData extends Data<Boolean> implements BooleanSupplier {
+
+    private StatusSignal<Boolean>[] signals;
+    private BooleanSupplier[] suppliers;
+    private Supplier<boolean[]> arraySupplier;
+
+    private boolean[] values = new boolean[0];
+    private Boolean[] boxedValues = new Boolean[0];
+    private boolean isArray;
+    private boolean changed = true;
+    private boolean sharedRefresh = false;
+
+    @SafeVarargs
+    public BooleanData(StatusSignal<Boolean>... signals) {
+        this.signals = signals;
+        sharedRefresh = SignalRegistry.isRegistered(signals);
+        values = new boolean[signals.length];
+        isArray = signals.length > 1;
+        refresh();
+        register();
+    }
+
+    private BooleanData(BooleanSupplier[] suppliers, Supplier<boolean[]> arraySupplier) {
+        this.suppliers = suppliers;
+        this.arraySupplier = arraySupplier;
+        if (suppliers != null) {
+            values = new boolean[suppliers.length];
+            isArray = suppliers.length > 1;
+        } else {
+            isArray = true;
+        }
+        refresh();
+        register();
+    }
+
+    public static BooleanData of(BooleanSupplier... suppliers) {
+        return new BooleanData(suppliers, null);
+    }
+
+    public static BooleanData ofArray(Supplier<boolean[]> arraySupplier) {
+        return new BooleanData(null, arraySupplier);
+    }
+
+    @Override
+    public void refresh() {
+        changed = false;
+
+        if (signals != null) {
+            if (signals.length == 0) return;
+            // registered signals were already refreshed for this cycle by SignalRegistry
+            StatusCode status = sharedRefresh ? SignalRegistry.getStatus(signals) : BaseStatusSignal.refreshAll(signals);
+            if (!status.isOK()) return;
+            for (int i = 0; i < signals.length; i++) {
+                boolean newVal = signals[i].getValueAsDouble() != 0;
+                if (values[i] != newVal) {
+                    values[i] = newVal;
+                    changed = true;
+                }
+            }
+        } else if (suppliers != null) {
+            for (int i = 0; i < suppliers.length; i++) {
+                boolean newVal = suppliers[i].getAsBoolean();
+                if (values[i] != newVal) {
+                    values[i] = newVal;
+                    changed = true;
+                }
+            }
+        } else if (arraySupplier != null) {
+            boolean[] newValues = arraySupplier.get();
+            if (newValues == null) return;
+            if (newValues.length != values.length) {
+                values = new boolean[newValues.length];
+                changed = true;
+            }
+            for (int i = 0; i < newValues.length; i++) {
+                if (values[i] != newValues[i]) {
+                    values[i] = newValues[i];
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the first value without boxing.
+     *
+     * @return first value, false if there are no values
+     */
+    @Override
+    public boolean getAsBoolean() {
+        return values.length > 0 && values[0];
+    }
+
+    /**
+     * Gets a value without boxing.
+     *
+     * @param index index of the value
+     * @return the value at index, false if out of range
+     */
+    public boolean getAsBoolean(int index) {
+        return index >= 0 && index < values.length && values[index];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean hasChanged() { return changed; }
+
+    @Override
+    public Double getDouble() { return null; }
+
+    @Override
+    public double[] getDoubleArray() { return null; }
+
+    @Override
+    public Float getFloat() { return null; }
+
+    @Override
+    public float[] getFloatArray() { return null; }
+
+    @Override
+    public Boolean getBoolean() {
+        return values.length > 0 ? values[0] : null;
+    }
+
+    @Override
+    public boolean[] getBooleanArray() {
+        return values.length > 0 ? values : null;
+    }
+
+    @Override
+    public String getString() { return ""; }
+
+    @Override
+    public String[] getStringArray() { return null; }
+
+    @Override
+    public Boolean getValue() {
+        return getBoolean();
+    }
+
+    /**
+     * Gets the values boxed, for consumers of the generic {@link Data} API.
+     *
+     * <p>The returned array is reused by the next call. Use {@link #getBooleanArray()} to
+     * read without boxing.</p>
+     */
+    @Override
+    public Boolean[] getValueArray() {
+        if (values.length == 0) return null;
+        if (boxedValues.length != values.length) boxedValues = new Boolean[values.length];
+        for (int i = 0; i < values.length; i++) boxedValues[i] = values[i];
+        return boxedValues;
+    }
+
+    @Override
+    public StatusSignal<Boolean> getSignal() {
+        return (signals != null && signals.length > 0) ? signals[0] : null;
+    }
+
+    @Override
+    public StatusSignal<Boolean>[] getSignals() {
+        return signals;
+    }
+
+    @Override
+    public Supplier<Boolean> getSupplier() {
+        return (suppliers != null && suppliers.length > 0) ? new BoxedSupplier(suppliers[0]) : null;
+    }
+
+    /**
+     * Gets the suppliers boxed, so the data can be merged into a category log entry.
+     * {@link #expandWithSuppliers} unwraps them again, merged BooleanData still reads without boxing.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Supplier<Boolean>[] getSuppliers() {
+        if (suppliers == null) return null;
+        Supplier<Boolean>[] boxed = new Supplier[suppliers.length];
+        for (int i = 0; i < suppliers.length; i++) boxed[i] = new BoxedSupplier(suppliers[i]);
+        return boxed;
+    }
+
+    @Override
+    public long getTime() {
+        if (signals != null && signals.length > 0) return (long) (signals[0].getTimestamp().getTime() * 1000);
+        return 0;
+    }
+
+    @Override
+    public boolean isDouble() { return false; }
+
+    @Override
+    public boolean isBoolean() { return true; }
+
+    @Override
+    public boolean isArray() { return isArray; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void expandWithSignals(StatusSignal<Boolean>[] newSignals) {
+        if (signals == null || newSignals == null || newSignals.length == 0) return;
+        StatusSignal<Boolean>[] expanded = new StatusSignal[signals.length + newSignals.length];
+        System.arraycopy(signals, 0, expanded, 0, signals.length);
+        System.arraycopy(newSignals, 0, expanded, signals.length, newSignals.length);
+        signals = expanded;
+        sharedRefresh = SignalRegistry.isRegistered(signals);
+        values = new boolean[signals.length];
+        isArray = signals.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    /**
+     * Adds suppliers to data made with {@link #of(BooleanSupplier...)}. A null value reads as false.
+     *
+     * @throws UnsupportedOperationException if the data is made of signals or an array supplier
+     */
+    @Override
+    public void expandWithSuppliers(Supplier<Boolean>[] newSuppliers) {
+        if (newSuppliers == null || newSuppliers.length == 0) return;
+        if (suppliers == null) {
+            throw new UnsupportedOperationException("BooleanData of " + (signals != null ? "signals" : "an array supplier")
+                + " can not be expanded with suppliers");
+        }
+        BooleanSupplier[] expanded = new BooleanSupplier[suppliers.length + newSuppliers.length];
+        System.arraycopy(suppliers, 0, expanded, 0, suppliers.length);
+        for (int i = 0; i < newSuppliers.length; i++) {
+            Supplier<Boolean> supplier = newSuppliers[i];
+            expanded[suppliers.length + i] = supplier instanceof BoxedSupplier ? ((BoxedSupplier) supplier).source
+                : () -> Boolean.TRUE.equals(supplier.get());
+        }
+        suppliers = expanded;
+        values = new boolean[suppliers.length];
+        isArray = suppliers.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void removeSignalRange(int startIndex, int count) {
+        if (signals == null || signals.length == 0 || count <= 0) return;
+        count = Math.min(count, signals.length - startIndex);
+        StatusSignal<Boolean>[] remaining = new StatusSignal[signals.length - count];
+        System.arraycopy(signals, 0, remaining, 0, startIndex);
+        System.arraycopy(signals, startIndex + count, remaining, startIndex, signals.length - startIndex - count);
+        signals = remaining;
+        sharedRefresh = SignalRegistry.isRegistered(signals);
+        values = new boolean[signals.length];
+        isArray = signals.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    /**
+     * Removes suppliers from data made with {@link #of(BooleanSupplier...)}.
+     *
+     * @throws UnsupportedOperationException if the data is made of signals or an array supplier
+     */
+    @Override
+    public void removeSupplierRange(int startIndex, int count) {
+        if (suppliers == null) {
+            throw new UnsupportedOperationException("BooleanData of " + (signals != null ? "signals" : "an array supplier")
+                + " has no suppliers to remove");
+        }
+        if (suppliers.length == 0 || count <= 0) return;
+        count = Math.min(count, suppliers.length - startIndex);
+        BooleanSupplier[] remaining = new BooleanSupplier[suppliers.length - count];
+        System.arraycopy(suppliers, 0, remaining, 0, startIndex);
+        System.arraycopy(suppliers, startIndex + count, remaining, startIndex, suppliers.length - startIndex - count);
+        suppliers = remaining;
+        values = new boolean[suppliers.length];
+        isArray = suppliers.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    @Override
+    public void cleanup() {
+        signals = null;
+        suppliers = null;
+        arraySupplier = null;
+        values = new boolean[0];
+    }
+
+    private static final class BoxedSupplier implements Supplier<Boolean> {
+        private final BooleanSupplier source;
+
+        private BoxedSupplier(BooleanSupplier source) {
+            this.source = source;
+        }
+
+        @Override
+        public Boolean get() {
+            return source.getAsBoolean();
+        }
+    }
+}
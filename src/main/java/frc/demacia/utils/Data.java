@@ -25,6 +25,7 @@ public class Data<T> {
     private boolean isArray = false;
 
     private boolean changed = true;
+    private boolean sharedRefresh = false;
 
     private double[] cachedDoubleArray;
     private float[] cachedFloatArray;
@@ -36,6 +37,7 @@ public class Data<T> {
         this.signal = signal;
         length = signal.length;
         currentValues = (T[]) new Object[length];
+        sharedRefresh = SignalRegistry.isRegistered(signal);
         
         refresh();
 
@@ -76,7 +78,13 @@ public class Data<T> {
         register();
     }
 
-    private void register() {
+    /**
+     * For primitive-specialized subclasses that keep their own storage.
+     */
+    protected Data() {
+    }
+
+    protected void register() {
         synchronized (signals) {
             signals.add(new WeakReference<>(this));
         }
@@ -98,10 +106,15 @@ public class Data<T> {
     }
 
     private void detectArrayType(T value) {
-        if (java.lang.reflect.Array.getLength(value) == 0) return;
-        Object first = java.lang.reflect.Array.get(value, 0);
-        if (first instanceof Number) isDouble = true;
-        else if (first instanceof Boolean) isBoolean = true;
+        if (value instanceof double[] || value instanceof float[] || value instanceof int[] || value instanceof long[]) {
+            isDouble = true;
+        } else if (value instanceof boolean[]) {
+            isBoolean = true;
+        } else if (value instanceof Object[] && ((Object[]) value).length > 0) {
+            Object first = ((Object[]) value)[0];
+            if (first instanceof Number) isDouble = true;
+            else if (first instanceof Boolean) isBoolean = true;
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -145,13 +158,7 @@ public class Data<T> {
         if (currentValues == null || currentValues.length == 0) return 0;
         
         if (isArray) {
-            int total = 0;
-            for(T val : currentValues) {
-                if (val != null && val.getClass().isArray()) {
-                    total += java.lang.reflect.Array.getLength(val);
-                }
-            }
-            return total > 0 ? total : 0;
+            return totalArrayLength(currentValues);
         }
         return length;
     }
@@ -161,7 +168,7 @@ public class Data<T> {
         changed = false;
 
         if (signal != null) {
-            StatusCode st = StatusSignal.refreshAll(signal);
+            StatusCode st = sharedRefresh ? SignalRegistry.getStatus(signal) : StatusSignal.refreshAll(signal);
             if(st.isOK()) {
                 if (isDouble) {
                     for (int i = 0; i < length; i++) {
@@ -169,9 +176,6 @@ public class Data<T> {
                         if (cachedDoubleArray[i] != newVal) {
                             changed = true;
                             cachedDoubleArray[i] = newVal;
-                            if (currentValues[i] == null || ((Number)currentValues[i]).doubleValue() != newVal) {
-                                currentValues[i] = (T) Double.valueOf(newVal); 
-                            }
                         }
                     }
                 } else {
@@ -204,6 +208,7 @@ public class Data<T> {
     }
 
     public static void refreshAll() {
+        SignalRegistry.refreshAll();
         synchronized (signals) {
             Iterator<WeakReference<Data<?>>> iterator = signals.iterator();
             while (iterator.hasNext()) {
@@ -268,12 +273,23 @@ public class Data<T> {
 
     public String[] getStringArray() {
         if (isDouble || isBoolean || length == 0) return null;
-            return cachedStringArray;
-        }
+        return cachedStringArray;
+    }
+
+    // numeric signals are only kept in cachedDoubleArray, the typed value is read from the signal on demand
+    public T getValue() {
+        if (length == 0) return null;
+        if (signal != null && isDouble) return signal[0].getValue();
+        return currentValues[0];
+    }
 
-    // ... rest of getters ...
-    public T getValue() { return length == 0 ? null : currentValues[0]; }
-    public T[] getValueArray() { return length == 0 ? null : currentValues; }
+    public T[] getValueArray() {
+        if (length == 0) return null;
+        if (signal != null && isDouble) {
+            for (int i = 0; i < length; i++) currentValues[i] = signal[i].getValue();
+        }
+        return currentValues;
+    }
     public StatusSignal<T> getSignal() { return (signal != null && signal.length > 0) ? signal[0] : null; }
     public StatusSignal<T>[] getSignals() { return signal; }
     public Supplier<T> getSupplier() { return (oldSupplier != null && oldSupplier.length > 0) ? oldSupplier[0] : null; }
@@ -288,7 +304,6 @@ public class Data<T> {
     public boolean isBoolean() { return isBoolean; }
     public boolean isArray() { return isArray; }
 
-    // ... expansion methods (unchanged logic) ...
     @SuppressWarnings("unchecked")
     public void expandWithSignals(StatusSignal<T>[] newSignals) {
         if (signal == null || newSignals == null || newSignals.length == 0) return;
@@ -298,6 +313,7 @@ public class Data<T> {
         System.arraycopy(signal, 0, expandedSignals, 0, oldLength);
         System.arraycopy(newSignals, 0, expandedSignals, oldLength, newSignals.length);
         signal = expandedSignals;
+        sharedRefresh = SignalRegistry.isRegistered(signal);
         T[] expandedCurrent = (T[]) new Object[newLength];
         if (currentValues != null) System.arraycopy(currentValues, 0, expandedCurrent, 0, Math.min(oldLength, currentValues.length));
         currentValues = expandedCurrent;
@@ -331,7 +347,6 @@ public class Data<T> {
         refresh();
     }
 
-    // ... removal methods (unchanged) ...
     @SuppressWarnings("unchecked")
     public void removeSignalRange(int startIndex, int count) {
         if (signal == null || signal.length == 0 || count <= 0) return;
@@ -339,7 +354,7 @@ public class Data<T> {
         StatusSignal<T>[] newSignals = new StatusSignal[newLength];
         if (startIndex > 0) System.arraycopy(signal, 0, newSignals, 0, startIndex);
         if (startIndex + count < length) System.arraycopy(signal, startIndex + count, newSignals, startIndex, length - startIndex - count);
-        signal = newSignals; length = newLength; currentValues = (T[]) new Object[length]; isArray = length > 1;
+        signal = newSignals; length = newLength; sharedRefresh = SignalRegistry.isRegistered(signal); currentValues = (T[]) new Object[length]; isArray = length > 1;
         allocateCachedArrays(); refresh();
     }
     public void removeSignal(int startIndex){ removeSignalRange(startIndex, 1); }
@@ -366,101 +381,56 @@ public class Data<T> {
     }
     public void removeSupplier(int startIndex){ removeSupplierRange(startIndex, 1); }
 
-    // Internal conversion methods (Corrected logic)
-    private double[] toDoubleArray(T[] value){
-        if (value == null) return null;
-        int totalSize = 0;
-        if (isArray) {
-            for (T val : value) if (val != null) totalSize += java.lang.reflect.Array.getLength(val);
-        } else totalSize = length;
-
+    // Internal conversion methods, no reflection or boxing on the primitive array paths
+    private void toDoubleArray(T[] value){
+        if (value == null) return;
+        int totalSize = isArray ? totalArrayLength(value) : length;
         if (cachedDoubleArray == null || cachedDoubleArray.length != totalSize) cachedDoubleArray = new double[totalSize];
 
         if (!isArray) {
             for (int i = 0; i < length; i++) {
-                if (value[i] instanceof Number) cachedDoubleArray[i] = ((Number) value[i]).doubleValue();
-                else cachedDoubleArray[i] = 0.0;
+                cachedDoubleArray[i] = (value[i] instanceof Number) ? ((Number) value[i]).doubleValue() : 0.0;
             }
         } else {
             int offset = 0;
-            for (T val : value) {
-                if (val != null) {
-                    int len = java.lang.reflect.Array.getLength(val);
-                    for (int i = 0; i < len; i++) {
-                        Object elem = java.lang.reflect.Array.get(val, i);
-                        cachedDoubleArray[offset++] = (elem != null) ? ((Number) elem).doubleValue() : 0.0;
-                    }
-                }
-            }
+            for (T val : value) offset += copyDoubles(val, cachedDoubleArray, offset);
         }
-        return cachedDoubleArray;
     }
 
     private Double toDouble(T value){
         if (value == null) return null;
-        if (isArray) {
-            Object first = java.lang.reflect.Array.get(value, 0);
-            return (first != null) ? ((Number) first).doubleValue() : null;
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value instanceof double[]) return ((double[]) value).length > 0 ? ((double[]) value)[0] : null;
+        if (value instanceof Object[] && ((Object[]) value).length > 0 && ((Object[]) value)[0] instanceof Number) {
+            return ((Number) ((Object[]) value)[0]).doubleValue();
         }
-        return ((Number) value).doubleValue();
+        return null;
     }
 
     private float[] toFloatArray(T[] value){
         if (value == null) return null;
-        int totalSize = 0;
-        if (isArray) for (T val : value) if (val != null) totalSize += java.lang.reflect.Array.getLength(val);
-        else totalSize = length;
-
-        if (cachedFloatArray == null || cachedFloatArray.length != totalSize) cachedFloatArray = new float[totalSize];
-
-        if (!isArray) {
-            for (int i = 0; i < length; i++) cachedFloatArray[i] = (value[i] != null) ? ((Number) value[i]).floatValue() : 0f;
-        } else {
-            int offset = 0;
-            for (T val : value) {
-                if (val != null) {
-                    int len = java.lang.reflect.Array.getLength(val);
-                    for (int i = 0; i < len; i++) {
-                        Object elem = java.lang.reflect.Array.get(val, i);
-                        cachedFloatArray[offset++] = (elem != null) ? ((Number) elem).floatValue() : 0f;
-                    }
-                }
-            }
-        }
+        toDoubleArray(value);
+        if (cachedFloatArray == null || cachedFloatArray.length != cachedDoubleArray.length) cachedFloatArray = new float[cachedDoubleArray.length];
+        for (int i = 0; i < cachedDoubleArray.length; i++) cachedFloatArray[i] = (float) cachedDoubleArray[i];
         return cachedFloatArray;
     }
 
-    private boolean[] toBooleanArray(T[] value){
-        if (value == null) return null;
-        int totalSize = 0;
-        if (isArray) for (T val : value) if (val != null) totalSize += java.lang.reflect.Array.getLength(val);
-        else totalSize = length;
-
+    private void toBooleanArray(T[] value){
+        if (value == null) return;
+        int totalSize = isArray ? totalArrayLength(value) : length;
         if (cachedBooleanArray == null || cachedBooleanArray.length != totalSize) cachedBooleanArray = new boolean[totalSize];
         
         if (!isArray) {
-            for (int i = 0; i < length; i++) cachedBooleanArray[i] = (value[i] != null) && (Boolean) value[i];
+            for (int i = 0; i < length; i++) cachedBooleanArray[i] = (value[i] instanceof Boolean) && (Boolean) value[i];
         } else {
             int offset = 0;
-            for (T val : value) {
-                if (val != null) {
-                    int len = java.lang.reflect.Array.getLength(val);
-                    for (int i = 0; i < len; i++) {
-                        Object elem = java.lang.reflect.Array.get(val, i);
-                        cachedBooleanArray[offset++] = (elem != null) && (Boolean) elem;
-                    }
-                }
-            }
+            for (T val : value) offset += copyBooleans(val, cachedBooleanArray, offset);
         }
-        return cachedBooleanArray;
     }
     
-    private String[] toStringArray(T[] value){
-        if (value == null) return null;
-        int totalSize = 0;
-        if (isArray) for (T val : value) if (val != null) totalSize += java.lang.reflect.Array.getLength(val);
-        else totalSize = length;
-
+    private void toStringArray(T[] value){
+        if (value == null) return;
+        int totalSize = isArray ? totalArrayLength(value) : length;
         if (cachedStringArray == null || cachedStringArray.length != totalSize) cachedStringArray = new String[totalSize];
         
         if (!isArray) {
@@ -468,16 +438,72 @@ public class Data<T> {
         } else {
             int offset = 0;
             for (T val : value) {
-                if (val != null) {
-                    int len = java.lang.reflect.Array.getLength(val);
-                    for (int i = 0; i < len; i++) {
-                        Object elem = java.lang.reflect.Array.get(val, i);
-                        cachedStringArray[offset++] = (elem != null) ? elem.toString() : null;
-                    }
+                if (val instanceof Object[]) {
+                    for (Object elem : (Object[]) val) cachedStringArray[offset++] = (elem != null) ? elem.toString() : null;
+                } else {
+                    offset += arrayLength(val);
                 }
             }
         }
-        return cachedStringArray;
+    }
+
+    private int totalArrayLength(T[] value) {
+        int total = 0;
+        for (T val : value) total += arrayLength(val);
+        return total;
+    }
+
+    private static int arrayLength(Object array) {
+        if (array instanceof double[]) return ((double[]) array).length;
+        if (array instanceof boolean[]) return ((boolean[]) array).length;
+        if (array instanceof float[]) return ((float[]) array).length;
+        if (array instanceof int[]) return ((int[]) array).length;
+        if (array instanceof long[]) return ((long[]) array).length;
+        if (array instanceof Object[]) return ((Object[]) array).length;
+        return 0;
+    }
+
+    private static int copyDoubles(Object array, double[] dest, int offset) {
+        if (array instanceof double[]) {
+            double[] a = (double[]) array;
+            System.arraycopy(a, 0, dest, offset, a.length);
+            return a.length;
+        }
+        if (array instanceof float[]) {
+            float[] a = (float[]) array;
+            for (int i = 0; i < a.length; i++) dest[offset + i] = a[i];
+            return a.length;
+        }
+        if (array instanceof int[]) {
+            int[] a = (int[]) array;
+            for (int i = 0; i < a.length; i++) dest[offset + i] = a[i];
+            return a.length;
+        }
+        if (array instanceof long[]) {
+            long[] a = (long[]) array;
+            for (int i = 0; i < a.length; i++) dest[offset + i] = a[i];
+            return a.length;
+        }
+        if (array instanceof Object[]) {
+            Object[] a = (Object[]) array;
+            for (int i = 0; i < a.length; i++) dest[offset + i] = (a[i] instanceof Number) ? ((Number) a[i]).doubleValue() : 0.0;
+            return a.length;
+        }
+        return 0;
+    }
+
+    private static int copyBooleans(Object array, boolean[] dest, int offset) {
+        if (array instanceof boolean[]) {
+            boolean[] a = (boolean[]) array;
+            System.arraycopy(a, 0, dest, offset, a.length);
+            return a.length;
+        }
+        if (array instanceof Object[]) {
+            Object[] a = (Object[]) array;
+            for (int i = 0; i < a.length; i++) dest[offset + i] = (a[i] instanceof Boolean) && (Boolean) a[i];
+            return a.length;
+        }
+        return arrayLength(array);
     }
 
     public void cleanup() {
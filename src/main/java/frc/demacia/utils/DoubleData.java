@@ -0,0 +1,342 @@
+package frc.demacia.utils;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+/**
+ * {@link Data} specialized for numeric values.
+ *
+ * <p>Values are kept only in a {@code double[]}, so {@link #refresh()} never boxes and
+ * never uses reflection. Sources are numeric status signals, {@link DoubleSupplier}s or a
+ * single {@code double[]} supplier.</p>
+ *
+ * <pre>
+ * DoubleData position = new DoubleData(motor.getPosition());
+ * DoubleData angles = DoubleData.ofArray(() -> new double[] {getYaw(), getPitch()});
+ * double value = position.getAsDouble();
+ * </pre>
+ *
+ * <p>Signal and {@link DoubleSupplier} based data can be merged into a category log entry,
+ * data of an array supplier is always logged as its own entry.</p>
+ */
+public class DoubleData extends Data<Double> implements DoubleSupplier {
+
+    private StatusSignal<?>[] signals;
+    private DoubleSupplier[] suppliers;
+    private Supplier<double[]> arraySupplier;
+
+    private double[] values = new double[0];
+    private float[] floatValues = new float[0];
+    private Double[] boxedValues = new Double[0];
+    private boolean isArray;
+    private boolean changed = true;
+    private boolean sharedRefresh = false;
+
+    public DoubleData(StatusSignal<?>... signals) {
+        this.signals = signals;
+        sharedRefresh = SignalRegistry.isRegistered(signals);
+        resize(signals.length);
+        isArray = signals.length > 1;
+        refresh();
+        register();
+    }
+
+    private DoubleData(DoubleSupplier[] suppliers, Supplier<double[]> arraySupplier) {
+        this.suppliers = suppliers;
+        this.arraySupplier = arraySupplier;
+        if (suppliers != null) {
+            resize(suppliers.length);
+            isArray = suppliers.length > 1;
+        } else {
+            isArray = true;
+        }
+        refresh();
+        register();
+    }
+
+    public static DoubleData of(DoubleSupplier... suppliers) {
+        return new DoubleData(suppliers, null);
+    }
+
+    public static DoubleData ofArray(Supplier<double[]> arraySupplier) {
+        return new DoubleData(null, arraySupplier);
+    }
+
+    private void resize(int size) {
+        values = new double[size];
+        floatValues = new float[size];
+        changed = true;
+    }
+
+    @Override
+    public void refresh() {
+        changed = false;
+
+        if (signals != null) {
+            if (signals.length == 0) return;
+            // registered signals were already refreshed for this cycle by SignalRegistry
+            StatusCode status = sharedRefresh ? SignalRegistry.getStatus(signals) : BaseStatusSignal.refreshAll(signals);
+            if (!status.isOK()) return;
+            for (int i = 0; i < signals.length; i++) {
+                double newVal = signals[i].getValueAsDouble();
+                if (values[i] != newVal) {
+                    values[i] = newVal;
+                    changed = true;
+                }
+            }
+        } else if (suppliers != null) {
+            for (int i = 0; i < suppliers.length; i++) {
+                double newVal = suppliers[i].getAsDouble();
+                if (values[i] != newVal) {
+                    values[i] = newVal;
+                    changed = true;
+                }
+            }
+        } else if (arraySupplier != null) {
+            double[] newValues = arraySupplier.get();
+            if (newValues == null) return;
+            if (newValues.length != values.length) resize(newValues.length);
+            for (int i = 0; i < newValues.length; i++) {
+                if (values[i] != newValues[i]) {
+                    values[i] = newValues[i];
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the first value without boxing.
+     *
+     * @return first value, 0 if there are no values
+     */
+    @Override
+    public double getAsDouble() {
+        return values.length > 0 ? values[0] : 0.0;
+    }
+
+    /**
+     * Gets a value without boxing.
+     *
+     * @param index index of the value
+     * @return the value at index, 0 if out of range
+     */
+    public double getAsDouble(int index) {
+        return index >= 0 && index < values.length ? values[index] : 0.0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean hasChanged() { return changed; }
+
+    @Override
+    public Double getDouble() {
+        return values.length > 0 ? values[0] : null;
+    }
+
+    @Override
+    public double[] getDoubleArray() {
+        return values.length > 0 ? values : null;
+    }
+
+    @Override
+    public Float getFloat() {
+        return values.length > 0 ? (float) values[0] : null;
+    }
+
+    @Override
+    public float[] getFloatArray() {
+        if (values.length == 0) return null;
+        for (int i = 0; i < values.length; i++) floatValues[i] = (float) values[i];
+        return floatValues;
+    }
+
+    @Override
+    public Boolean getBoolean() { return null; }
+
+    @Override
+    public boolean[] getBooleanArray() { return null; }
+
+    @Override
+    public String getString() { return ""; }
+
+    @Override
+    public String[] getStringArray() { return null; }
+
+    @Override
+    public Double getValue() {
+        return getDouble();
+    }
+
+    /**
+     * Gets the values boxed, for consumers of the generic {@link Data} API.
+     *
+     * <p>The returned array is reused by the next call and only values that changed are boxed
+     * again. Use {@link #getDoubleArray()} to read without boxing.</p>
+     */
+    @Override
+    public Double[] getValueArray() {
+        if (values.length == 0) return null;
+        if (boxedValues.length != values.length) boxedValues = new Double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Double boxed = boxedValues[i];
+            if (boxed == null || boxed.doubleValue() != values[i]) boxedValues[i] = values[i];
+        }
+        return boxedValues;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public StatusSignal<Double> getSignal() {
+        return (signals != null && signals.length > 0) ? (StatusSignal<Double>) signals[0] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public StatusSignal<Double>[] getSignals() {
+        return (StatusSignal<Double>[]) signals;
+    }
+
+    @Override
+    public Supplier<Double> getSupplier() {
+        return (suppliers != null && suppliers.length > 0) ? new BoxedSupplier(suppliers[0]) : null;
+    }
+
+    /**
+     * Gets the suppliers boxed, so the data can be merged into a category log entry.
+     * {@link #expandWithSuppliers} unwraps them again, merged DoubleData still reads without boxing.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Supplier<Double>[] getSuppliers() {
+        if (suppliers == null) return null;
+        Supplier<Double>[] boxed = new Supplier[suppliers.length];
+        for (int i = 0; i < suppliers.length; i++) boxed[i] = new BoxedSupplier(suppliers[i]);
+        return boxed;
+    }
+
+    @Override
+    public long getTime() {
+        if (signals != null && signals.length > 0) return (long) (signals[0].getTimestamp().getTime() * 1000);
+        return 0;
+    }
+
+    @Override
+    public boolean isDouble() { return true; }
+
+    @Override
+    public boolean isBoolean() { return false; }
+
+    @Override
+    public boolean isArray() { return isArray; }
+
+    @Override
+    public void expandWithSignals(StatusSignal<Double>[] newSignals) {
+        if (signals == null || newSignals == null || newSignals.length == 0) return;
+        StatusSignal<?>[] expanded = new StatusSignal<?>[signals.length + newSignals.length];
+        System.arraycopy(signals, 0, expanded, 0, signals.length);
+        System.arraycopy(newSignals, 0, expanded, signals.length, newSignals.length);
+        signals = expanded;
+        sharedRefresh = SignalRegistry.isRegistered(signals);
+        resize(signals.length);
+        isArray = signals.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    /**
+     * Adds suppliers to data made with {@link #of(DoubleSupplier...)}. A value that is null or
+     * not a number reads as 0.
+     *
+     * @throws UnsupportedOperationException if the data is made of signals or an array supplier
+     */
+    @Override
+    public void expandWithSuppliers(Supplier<Double>[] newSuppliers) {
+        if (newSuppliers == null || newSuppliers.length == 0) return;
+        if (suppliers == null) {
+            throw new UnsupportedOperationException("DoubleData of " + (signals != null ? "signals" : "an array supplier")
+                + " can not be expanded with suppliers");
+        }
+        DoubleSupplier[] expanded = new DoubleSupplier[suppliers.length + newSuppliers.length];
+        System.arraycopy(suppliers, 0, expanded, 0, suppliers.length);
+        for (int i = 0; i < newSuppliers.length; i++) {
+            // suppliers of a category entry can be of any number type
+            Supplier<?> supplier = newSuppliers[i];
+            expanded[suppliers.length + i] = supplier instanceof BoxedSupplier ? ((BoxedSupplier) supplier).source : () -> {
+                Object value = supplier.get();
+                return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+            };
+        }
+        suppliers = expanded;
+        resize(suppliers.length);
+        isArray = suppliers.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    @Override
+    public void removeSignalRange(int startIndex, int count) {
+        if (signals == null || signals.length == 0 || count <= 0) return;
+        count = Math.min(count, signals.length - startIndex);
+        StatusSignal<?>[] remaining = new StatusSignal<?>[signals.length - count];
+        System.arraycopy(signals, 0, remaining, 0, startIndex);
+        System.arraycopy(signals, startIndex + count, remaining, startIndex, signals.length - startIndex - count);
+        signals = remaining;
+        sharedRefresh = SignalRegistry.isRegistered(signals);
+        resize(signals.length);
+        isArray = signals.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    /**
+     * Removes suppliers from data made with {@link #of(DoubleSupplier...)}.
+     *
+     * @throws UnsupportedOperationException if the data is made of signals or an array supplier
+     */
+    @Override
+    public void removeSupplierRange(int startIndex, int count) {
+        if (suppliers == null) {
+            throw new UnsupportedOperationException("DoubleData of " + (signals != null ? "signals" : "an array supplier")
+                + " has no suppliers to remove");
+        }
+        if (suppliers.length == 0 || count <= 0) return;
+        count = Math.min(count, suppliers.length - startIndex);
+        DoubleSupplier[] remaining = new DoubleSupplier[suppliers.length - count];
+        System.arraycopy(suppliers, 0, remaining, 0, startIndex);
+        System.arraycopy(suppliers, startIndex + count, remaining, startIndex, suppliers.length - startIndex - count);
+        suppliers = remaining;
+        resize(suppliers.length);
+        isArray = suppliers.length > 1;
+        refresh();
+        changed = true;
+    }
+
+    @Override
+    public void cleanup() {
+        signals = null;
+        suppliers = null;
+        arraySupplier = null;
+        values = new double[0];
+    }
+
+    private static final class BoxedSupplier implements Supplier<Double> {
+        private final DoubleSupplier source;
+
+        private BoxedSupplier(DoubleSupplier source) {
+            this.source = source;
+        }
+
+        @Override
+        public Double get() {
+            return source.getAsDouble();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package frc.demacia.utils.Log;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.networktables.BooleanArrayPublisher;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.FloatArrayPublisher;
+import edu.wpi.first.networktables.FloatPublisher;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.util.datalog.BooleanArrayLogEntry;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLogEntry;
+import edu.wpi.first.util.datalog.FloatArrayLogEntry;
+import edu.wpi.first.util.datalog.FloatLogEntry;
+import edu.wpi.first.util.datalog.StringArrayLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+
+/**
+ * Background writer that moves DataLog appends and NetworkTables sets off the robot loop.
+ *
+ * <p>The robot loop is the only producer: {@link LogEntry} copies its sampled values into
+ * a {@link LogSample} returned by {@link #claim()} and calls {@link #publish()}. The writer
+ * thread is the only consumer. Head and tail are each written by a single thread, so the
+ * ring buffer needs no locks. When the buffer is full the sample is dropped instead of
+ * blocking the loop.</p>
+ *
+ * <p>A sample has a DataLog entry or an NT publisher. {@link NtPublishScheduler} picks on
+ * the robot loop which NT values are published and queues them with their publisher, the
+ * set happens here like the append.</p>
+ *
+ * <p>An entry that is replaced or removed may still have samples in the ring, so it is not
+ * finished on the robot loop. {@link #retire(DataLogEntry)} hands it to the writer thread,
+ * which finishes it after the samples queued before the call are written.</p>
+ *
+ * <p>Enabled with {@link LogManager#setAsyncWriting(boolean)}.</p>
+ */
+class AsyncLogWriter implements Runnable {
+
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private static final long IDLE_PARK_NANOS = 5_000_000;
+
+    private final LogSample[] ring;
+    private final int mask;
+
+    private volatile long head = 0;
+    private volatile long tail = 0;
+    private volatile boolean running = true;
+
+    private long dropped = 0;
+    private boolean droppedReported = false;
+
+    // entries to finish once head passes the tail they were retired at
+    private final ConcurrentLinkedQueue<Retired> retired = new ConcurrentLinkedQueue<>();
+
+    private volatile long errors = 0;
+    private volatile String firstError = null;
+    private boolean errorsReported = false;
+
+    private final Thread thread;
+
+    private float[][] floatScratch = new float[64][];
+    private boolean[][] booleanScratch = new boolean[64][];
+    private String[][] stringScratch = new String[64][];
+
+    AsyncLogWriter(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new LogSample[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new LogSample();
+        }
+        mask = size - 1;
+
+        thread = new Thread(this, "LogWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the next free slot, or null if the writer is behind and the buffer is full.
+     * Robot loop only.
+     */
+    LogSample claim() {
+        long t = tail;
+        if (t - head >= ring.length) {
+            dropped++;
+            if (!droppedReported) {
+                droppedReported = true;
+                LogManager.log("Log writer queue is full, dropping samples", AlertType.kWarning);
+            }
+            return null;
+        }
+        return ring[(int) (t & mask)];
+    }
+
+    /** Hands the slot returned by {@link #claim()} to the writer thread. Robot loop only. */
+    void publish() {
+        tail = tail + 1;
+    }
+
+    /**
+     * Finishes a DataLog entry on the writer thread, after every sample already published for it.
+     * Robot loop only.
+     */
+    void retire(DataLogEntry entry) {
+        retired.add(new Retired(entry, tail));
+        LockSupport.unpark(thread);
+    }
+
+    /** Wakes the writer thread, called once per cycle after all entries are sampled. */
+    void signal() {
+        if (errors > 0 && !errorsReported) {
+            errorsReported = true;
+            LogManager.log("Log writer failed to write samples: " + firstError, AlertType.kError);
+        }
+        LockSupport.unpark(thread);
+    }
+
+    long getDroppedCount() {
+        return dropped;
+    }
+
+    /** @return number of samples the writer thread failed to write */
+    long getErrorCount() {
+        return errors;
+    }
+
+    /** Stops the writer thread after it flushes everything already published. */
+    void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running || head != tail) {
+            boolean wrote = drain();
+            finishRetired();
+            if (!wrote) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        finishRetired();
+    }
+
+    private void finishRetired() {
+        Retired r;
+        while ((r = retired.peek()) != null && head >= r.tail) {
+            retired.poll();
+            try {
+                r.entry.finish();
+            } catch (Exception e) {
+                recordError(e);
+            }
+        }
+    }
+
+    private void recordError(Exception e) {
+        if (firstError == null) firstError = e.toString();
+        errors = errors + 1;
+    }
+
+    private boolean drain() {
+        long h = head;
+        long t = tail;
+        if (h == t) return false;
+
+        while (h != t) {
+            LogSample sample = ring[(int) (h & mask)];
+            try {
+                write(sample);
+            } catch (Exception e) {
+                // a failed append must not kill the writer, it is counted and reported from signal()
+                recordError(e);
+            }
+            sample.clear();
+            h++;
+            head = h;
+        }
+        return true;
+    }
+
+    private void write(LogSample s) {
+        switch (s.type) {
+            case LogSample.FLOAT:
+                if (s.isArray) {
+                    float[] values = floats(s.count);
+                    for (int i = 0; i < s.count; i++) values[i] = (float) s.doubles[i];
+                    if (s.entry != null) ((FloatArrayLogEntry) s.entry).append(values, s.time);
+                    if (s.publisher != null) ((FloatArrayPublisher) s.publisher).set(values);
+                } else if (s.count > 0) {
+                    float value = (float) s.doubles[0];
+                    if (s.entry != null) ((FloatLogEntry) s.entry).append(value, s.time);
+                    if (s.publisher != null) ((FloatPublisher) s.publisher).set(value);
+                }
+                break;
+            case LogSample.BOOLEAN:
+                if (s.isArray) {
+                    boolean[] values = booleans(s.count);
+                    System.arraycopy(s.booleans, 0, values, 0, s.count);
+                    if (s.entry != null) ((BooleanArrayLogEntry) s.entry).append(values, s.time);
+                    if (s.publisher != null) ((BooleanArrayPublisher) s.publisher).set(values);
+                } else if (s.count > 0) {
+                    boolean value = s.booleans[0];
+                    if (s.entry != null) ((BooleanLogEntry) s.entry).append(value, s.time);
+                    if (s.publisher != null) ((BooleanPublisher) s.publisher).set(value);
+                }
+                break;
+            default:
+                if (s.isArray) {
+                    String[] values = strings(s.count);
+                    System.arraycopy(s.strings, 0, values, 0, s.count);
+                    if (s.entry != null) ((StringArrayLogEntry) s.entry).append(values, s.time);
+                    if (s.publisher != null) ((StringArrayPublisher) s.publisher).set(values);
+                } else if (s.count > 0) {
+                    String value = s.strings[0];
+                    if (s.entry != null) ((StringLogEntry) s.entry).append(value, s.time);
+                    if (s.publisher != null) ((StringPublisher) s.publisher).set(value);
+                }
+                break;
+        }
+    }
+
+    private static final class Retired {
+        final DataLogEntry entry;
+        final long tail;
+
+        Retired(DataLogEntry entry, long tail) {
+            this.entry = entry;
+            this.tail = tail;
+        }
+    }
+
+    /*
+     * DataLog and NT copy array values on append/set, so one exact-length array per
+     * size is reused for every sample of that size.
+     */
+    private float[] floats(int length) {
+        if (length >= floatScratch.length) floatScratch = Arrays.copyOf(floatScratch, length * 2);
+        if (floatScratch[length] == null) floatScratch[length] = new float[length];
+        return floatScratch[length];
+    }
+
+    private boolean[] booleans(int length) {
+        if (length >= booleanScratch.length) booleanScratch = Arrays.copyOf(booleanScratch, length * 2);
+        if (booleanScratch[length] == null) booleanScratch[length] = new boolean[length];
+        return booleanScratch[length];
+    }
+
+    private String[] strings(int length) {
+        if (length >= stringScratch.length) stringScratch = Arrays.copyOf(stringScratch, length * 2);
+        if (stringScratch[length] == null) stringScratch[length] = new String[length];
+        return stringScratch[length];
+    }
+}
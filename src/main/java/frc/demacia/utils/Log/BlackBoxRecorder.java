@@ -0,0 +1,210 @@
+package frc.demacia.utils.Log;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.util.datalog.DataLogWriter;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import frc.demacia.utils.Data;
+import frc.demacia.utils.GlobalContext;
+
+/**
+ * Keeps the last seconds of selected data in memory and saves them to a separate wpilog
+ * when something goes wrong.
+ *
+ * <p>Every cycle {@link LogManager} copies the values of the recorded data into a
+ * preallocated ring of primitive samples, nothing is written to disk. {@link #trigger(String)}
+ * saves the ring to {@code blackbox_<time>.wpilog} in the log directory, from a background
+ * thread. It is called when a device's {@code checkElectronics()} finds a fault and when an
+ * error is logged with {@link LogManager#log(Object, AlertType)}.
+ * Triggers within {@value #COOLDOWN_SECONDS} seconds of the previous one are ignored, so a
+ * fault that stays active saves one file.</p>
+ *
+ * <pre>
+ * BlackBoxRecorder.add("Arm current", armMotor.getCurrentSignal());
+ * BlackBoxRecorder.setDuration(3);
+ * </pre>
+ */
+public class BlackBoxRecorder {
+
+    public static final double DEFAULT_DURATION = 5;
+    public static final double COOLDOWN_SECONDS = 10;
+
+    private static final ArrayList<String> names = new ArrayList<>();
+    private static final ArrayList<Data<?>> sources = new ArrayList<>();
+    private static int[] offsets = new int[0];
+    private static int[] widths = new int[0];
+    private static int width = 0;
+
+    private static double duration = DEFAULT_DURATION;
+    private static int capacity = 0;
+    private static long[] times = new long[0];
+    private static double[] values = new double[0];
+    private static int head = 0;
+    private static int count = 0;
+
+    private static long[] dumpTimes = new long[0];
+    private static double[] dumpValues = new double[0];
+    private static volatile boolean dumping = false;
+    private static volatile String dumpResult = null;
+    private static long lastTrigger = Long.MIN_VALUE;
+
+    /**
+     * Adds data to record. The number of values is taken from the data when it is added.
+     * Adding data clears what was recorded so far.
+     *
+     * @param name name of the entry in the saved log
+     * @param data numeric or boolean data
+     */
+    public static void add(String name, Data<?> data) {
+        if (dumping) {
+            LogManager.log("BlackBoxRecorder: cannot add " + name + " while saving", AlertType.kWarning);
+            return;
+        }
+        names.add(name);
+        sources.add(data);
+
+        offsets = Arrays.copyOf(offsets, sources.size());
+        widths = Arrays.copyOf(widths, sources.size());
+        int length = data.isBoolean()
+            ? (data.getBooleanArray() != null ? data.getBooleanArray().length : 1)
+            : (data.getDoubleArray() != null ? data.getDoubleArray().length : 1);
+        widths[sources.size() - 1] = length;
+        width = 0;
+        for (int i = 0; i < widths.length; i++) {
+            offsets[i] = width;
+            width += widths[i];
+        }
+        allocate();
+    }
+
+    /**
+     * Sets how many seconds are kept. Clears what was recorded so far.
+     *
+     * @param seconds seconds of history to save on a trigger
+     */
+    public static void setDuration(double seconds) {
+        if (dumping) return;
+        duration = seconds;
+        allocate();
+    }
+
+    private static void allocate() {
+        capacity = Math.max(1, (int) Math.ceil(duration / GlobalContext.getCycleTime()));
+        times = new long[capacity];
+        values = new double[capacity * width];
+        dumpTimes = new long[capacity];
+        dumpValues = new double[capacity * width];
+        head = 0;
+        count = 0;
+    }
+
+    /**
+     * Records the current values. Called by {@link LogManager} after the data was refreshed.
+     */
+    static void sample() {
+        String result = dumpResult;
+        if (result != null) {
+            dumpResult = null;
+            LogManager.log(result);
+        }
+        if (width == 0) return;
+
+        int base = head * width;
+        times[head] = WPIUtilJNI.now();
+        for (int i = 0; i < sources.size(); i++) {
+            Data<?> data = sources.get(i);
+            int offset = base + offsets[i];
+            int n = widths[i];
+            if (data.isBoolean()) {
+                boolean[] array = data.getBooleanArray();
+                Boolean value = array == null ? data.getBoolean() : null;
+                for (int j = 0; j < n; j++) {
+                    values[offset + j] = array != null ? (j < array.length && array[j] ? 1 : 0)
+                        : (value != null && value ? 1 : 0);
+                }
+            } else {
+                double[] array = data.getDoubleArray();
+                Double value = array == null ? data.getDouble() : null;
+                for (int j = 0; j < n; j++) {
+                    values[offset + j] = array != null ? (j < array.length ? array[j] : Double.NaN)
+                        : (value != null ? value : Double.NaN);
+                }
+            }
+        }
+        head = (head + 1) % capacity;
+        if (count < capacity) count++;
+    }
+
+    /**
+     * Saves the recorded history to a separate wpilog.
+     *
+     * @param reason why the history is saved, written to the log as BlackBox/Reason
+     */
+    public static void trigger(String reason) {
+        if (width == 0 || count == 0 || dumping) return;
+        long now = WPIUtilJNI.now();
+        if (lastTrigger != Long.MIN_VALUE && now - lastTrigger < COOLDOWN_SECONDS * 1e6) return;
+        lastTrigger = now;
+
+        // copy the ring oldest first, the writer thread only reads the copy
+        int start = count < capacity ? 0 : head;
+        for (int i = 0; i < count; i++) {
+            int row = (start + i) % capacity;
+            dumpTimes[i] = times[row];
+            System.arraycopy(values, row * width, dumpValues, i * width, width);
+        }
+        int rows = count;
+        String[] entryNames = names.toArray(new String[0]);
+        int[] entryOffsets = offsets.clone();
+        int[] entryWidths = widths.clone();
+
+        dumping = true;
+        Thread thread = new Thread(() -> write(reason, rows, entryNames, entryOffsets, entryWidths), "BlackBoxWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void write(String reason, int rows, String[] entryNames, int[] entryOffsets, int[] entryWidths) {
+        String fileName = DataLogManager.getLogDir() + "/blackbox_"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".wpilog";
+        try (DataLogWriter log = new DataLogWriter(fileName)) {
+            new StringLogEntry(log, "BlackBox/Reason").append(reason, dumpTimes[rows - 1]);
+
+            Object[] entries = new Object[entryNames.length];
+            double[][] scratch = new double[entryNames.length][];
+            for (int c = 0; c < entryNames.length; c++) {
+                if (entryWidths[c] == 1) {
+                    entries[c] = new DoubleLogEntry(log, entryNames[c]);
+                } else {
+                    entries[c] = new DoubleArrayLogEntry(log, entryNames[c]);
+                    scratch[c] = new double[entryWidths[c]];
+                }
+            }
+
+            for (int r = 0; r < rows; r++) {
+                int base = r * width;
+                for (int c = 0; c < entries.length; c++) {
+                    if (scratch[c] == null) {
+                        ((DoubleLogEntry) entries[c]).append(dumpValues[base + entryOffsets[c]], dumpTimes[r]);
+                    } else {
+                        System.arraycopy(dumpValues, base + entryOffsets[c], scratch[c], 0, entryWidths[c]);
+                        ((DoubleArrayLogEntry) entries[c]).append(scratch[c], dumpTimes[r]);
+                    }
+                }
+            }
+            dumpResult = "black box saved to " + fileName + " (" + reason + ")";
+        } catch (Exception e) {
+            dumpResult = "black box failed to save: " + e.getMessage();
+        } finally {
+            dumping = false;
+        }
+    }
+}
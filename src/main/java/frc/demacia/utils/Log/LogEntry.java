@@ -4,7 +4,11 @@
 
 package frc.demacia.utils.Log;
 
+import java.util.ArrayList;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix6.StatusSignal;
 
 import edu.wpi.first.networktables.BooleanArrayPublisher;
 import edu.wpi.first.networktables.BooleanPublisher;
@@ -14,6 +18,7 @@ import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.Publisher;
 import edu.wpi.first.networktables.StringArrayPublisher;
 import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.util.WPIUtilJNI;
 import edu.wpi.first.util.datalog.BooleanArrayLogEntry;
 import edu.wpi.first.util.datalog.BooleanLogEntry;
 import edu.wpi.first.util.datalog.DataLog;
@@ -41,6 +46,23 @@ public class LogEntry<T> {
 
     private BiConsumer<Long, Data<T>> logStrategy;
     private BiConsumer<Data<T>, Publisher> ntStrategy;
+
+    // false until LogManager.freeze(), data added before that is merged once on freeze
+    private boolean initialized = false;
+    private ArrayList<String> pendingNames = new ArrayList<>();
+    private ArrayList<String> pendingMetaData = new ArrayList<>();
+    private ArrayList<Data<T>> pendingData = new ArrayList<>();
+    private int pendingLength = 0;
+
+    // decimation, the entry is written on cycles where (cycle + phase) % period == 0
+    private int period = 1;
+    private int phase = 0;
+    private double deadband = 0;
+    private double[] lastLogged = new double[0];
+    private double[] singleValue = new double[1];
+    private boolean changedSinceLog = false;
+
+    private boolean ntPending = false;
     /*
         * Constructor with the suppliers and boolean if add to network table
     */
@@ -53,12 +75,30 @@ public class LogEntry<T> {
         this.data = data;
         this.metaData = metaData;
 
+        if (LogManager.isFrozen()) {
+            initialize();
+        }
+    }
+
+    /*
+     * Merges the data added during registration and creates the DataLog entry and
+     * NT publisher, once. Called by LogManager.freeze() or by the constructor after it.
+     */
+    void initialize() {
+        if (initialized) return;
+        mergePending();
+        if (data == null) return;
+        initialized = true;
         initializeLogging();
     }
 
+    boolean isInitialized() {
+        return initialized;
+    }
+
     private void initializeLogging() {
         if (ntPublisher != null) ntPublisher.close();
-        if (entry != null) entry.finish();
+        finishEntry();
 
         createLogEntry(logManager.log, name, metaData);
 
@@ -70,8 +110,22 @@ public class LogEntry<T> {
         }
     }
 
+    /*
+     * Finishes the DataLog entry. With the async writer it may still have queued samples,
+     * so the writer thread finishes it after them.
+     */
+    private void finishEntry() {
+        if (entry == null) return;
+        AsyncLogWriter writer = logManager != null ? logManager.asyncWriter : null;
+        if (writer != null) {
+            writer.retire(entry);
+        } else {
+            entry.finish();
+        }
+    }
+
     void log() {
-        if (!data.hasChanged()) {
+        if (!initialized || !isDue()) {
             return;
         }
 
@@ -81,27 +135,197 @@ public class LogEntry<T> {
             logStrategy.accept(time, data);
         }
 
-        if (ntPublisher != null && ntStrategy != null) {
-            ntStrategy.accept(data, ntPublisher);
+        if (ntPublisher != null) {
+            // published by the NtPublishScheduler
+            ntPending = true;
         }
         
         if (consumer != null) {
             consumer.accept(data.getValueArray(), time);
-        } 
+        }
+    }
+
+    /*
+     * Async version of log(): copies the current values into the writer's ring buffer,
+     * the DataLog append happens on the writer thread. NT is marked pending for the
+     * NtPublishScheduler, which queues the chosen values to the writer too.
+     */
+    void enqueue(AsyncLogWriter writer) {
+        if (!initialized || data == null || !isDue()) {
+            return;
+        }
+
+        long time = data.getTime();
+        if (time == 0) {
+            // suppliers have no timestamp, stamp them now and not when the writer gets to them
+            time = WPIUtilJNI.now();
+        }
+
+        LogSample sample = writer.claim();
+        if (sample != null) {
+            sample.entry = entry;
+            sample.publisher = null;
+            sample.time = time;
+            copyValues(sample);
+            writer.publish();
+        }
+
+        if (ntPublisher != null) {
+            ntPending = true;
+        }
+
+        if (consumer != null) {
+            consumer.accept(data.getValueArray(), time);
+        }
+    }
+
+    // Copies the current values into a ring slot
+    private void copyValues(LogSample sample) {
+        sample.isArray = data.isArray();
+        if (data.isDouble()) {
+            sample.type = LogSample.FLOAT;
+            sample.setDoubles(data.getDoubleArray());
+        } else if (data.isBoolean()) {
+            sample.type = LogSample.BOOLEAN;
+            if (sample.isArray) {
+                sample.setBooleans(data.getBooleanArray());
+            } else {
+                Boolean value = data.getBoolean();
+                sample.booleans[0] = value != null && value;
+                sample.count = value != null ? 1 : 0;
+            }
+        } else {
+            sample.type = LogSample.STRING;
+            if (sample.isArray) {
+                sample.setStrings(data.getStringArray());
+            } else {
+                sample.strings[0] = data.getString();
+                sample.count = 1;
+            }
+        }
+    }
+
+    /*
+     * Checks if the entry should be written this cycle. A change between two due cycles is
+     * remembered, so a slow entry still writes the latest value on its next cycle.
+     */
+    private boolean isDue() {
+        if (data.hasChanged()) {
+            changedSinceLog = true;
+        }
+        if (!changedSinceLog) return false;
+        if (period > 1 && (logManager.cycle + phase) % period != 0) return false;
+
+        changedSinceLog = false;
+        return deadband <= 0 || !isWithinDeadband();
+    }
+
+    private boolean isWithinDeadband() {
+        double[] values = data.getDoubleArray();
+        if (values == null) {
+            Double value = data.getDouble();
+            if (value == null) return false;
+            singleValue[0] = value;
+            values = singleValue;
+        }
+
+        boolean within = values.length == lastLogged.length;
+        for (int i = 0; within && i < values.length; i++) {
+            within = Math.abs(values[i] - lastLogged[i]) <= deadband;
+        }
+        if (!within) {
+            if (lastLogged.length != values.length) lastLogged = new double[values.length];
+            System.arraycopy(values, 0, lastLogged, 0, values.length);
+        }
+        return within;
+    }
+
+    boolean isNtPending() {
+        return ntPending && ntPublisher != null && ntStrategy != null && data != null;
+    }
+
+    /*
+     * Publishes the current value to NT. With the async writer the value is copied into its
+     * ring and the writer thread does the set, when the ring is full the value stays pending.
+     * Returns an estimate of the bytes sent, the value plus the topic id and timestamp.
+     */
+    int publishNt(AsyncLogWriter writer) {
+        if (writer != null) {
+            LogSample sample = writer.claim();
+            if (sample == null) return 0;
+            sample.entry = null;
+            sample.publisher = ntPublisher;
+            copyValues(sample);
+            writer.publish();
+        } else {
+            ntStrategy.accept(data, ntPublisher);
+        }
+        ntPending = false;
+
+        int bytes = 12;
+        if (data.isDouble()) {
+            double[] values = data.isArray() ? data.getDoubleArray() : null;
+            bytes += 4 * (values != null ? values.length : 1);
+        } else if (data.isBoolean()) {
+            boolean[] values = data.isArray() ? data.getBooleanArray() : null;
+            bytes += values != null ? values.length : 1;
+        } else if (data.isArray()) {
+            String[] values = data.getStringArray();
+            if (values != null) {
+                for (String value : values) bytes += value != null ? value.length() + 1 : 1;
+            }
+        } else {
+            String value = data.getString();
+            bytes += value != null ? value.length() : 0;
+        }
+        return bytes;
+    }
+
+    void setSchedule(int period, int phase) {
+        this.period = Math.max(1, period);
+        this.phase = phase;
+    }
+
+    /*
+     * Skips numeric values that moved less than the deadband since the last written value
+     */
+    void setDeadband(double deadband) {
+        this.deadband = deadband;
+    }
+
+    int getPeriod() {
+        return period;
     }
 
     public String getName(){
+        mergePending();
         return name;
     }
 
     public Data<T> getData(){
+        mergePending();
         return data;
     }
 
     public String getMetaData(){
+        mergePending();
         return metaData;
     }
 
+    boolean isSignalBased() {
+        return data != null && data.getSignals() != null;
+    }
+
+    /*
+     * Number of values in the entry, including data that was not merged yet
+     */
+    int getDataLength() {
+        if (data == null) return 0;
+        int length = data.getSignals() != null ? data.getSignals().length
+            : data.getSuppliers() != null ? data.getSuppliers().length : 0;
+        return length + pendingLength;
+    }
+
     public LogLevel getLogLevel(){
         return logLevel;
     }
@@ -117,6 +341,8 @@ public class LogEntry<T> {
     public void removeInComp() {
         if (logLevel == LogLevel.LOG_AND_NT_NOT_IN_COMP && ntPublisher != null) {
             ntPublisher.close();
+            ntPublisher = null;
+            ntStrategy = null;
         }
     }
 
@@ -181,6 +407,15 @@ public class LogEntry<T> {
     }
 
     public void addData(String name, Data<T> data, String metaData){
+        if (!initialized) {
+            // registration phase, only remember it so the entry is built once on freeze
+            pendingNames.add(name);
+            pendingMetaData.add(metaData);
+            pendingData.add(data);
+            pendingLength += data.getSignals() != null ? data.getSignals().length : data.getSuppliers().length;
+            return;
+        }
+
         this.name = this.name + " | " + name;
         this.metaData = this.metaData + " | " + metaData;
         if (this.data.getSignals() != null){
@@ -192,7 +427,44 @@ public class LogEntry<T> {
         initializeLogging();
     }
 
+    /*
+     * Joins the names and expands the data with everything added before freeze, in one go
+     */
+    @SuppressWarnings("unchecked")
+    private void mergePending() {
+        if (pendingData.isEmpty() || data == null) return;
+
+        StringBuilder newName = new StringBuilder(name);
+        StringBuilder newMetaData = new StringBuilder(metaData);
+        for (int i = 0; i < pendingNames.size(); i++) {
+            newName.append(" | ").append(pendingNames.get(i));
+            newMetaData.append(" | ").append(pendingMetaData.get(i));
+        }
+        name = newName.toString();
+        metaData = newMetaData.toString();
+
+        boolean isSignal = data.getSignals() != null;
+        Object[] merged = isSignal ? new StatusSignal<?>[pendingLength] : new Supplier<?>[pendingLength];
+        int index = 0;
+        for (Data<T> pending : pendingData) {
+            Object[] values = isSignal ? pending.getSignals() : pending.getSuppliers();
+            System.arraycopy(values, 0, merged, index, values.length);
+            index += values.length;
+        }
+        if (isSignal) {
+            data.expandWithSignals((StatusSignal<T>[]) merged);
+        } else {
+            data.expandWithSuppliers((Supplier<T>[]) merged);
+        }
+
+        pendingNames.clear();
+        pendingMetaData.clear();
+        pendingData.clear();
+        pendingLength = 0;
+    }
+
     public void removeData(int nameIndex, int dataIndex, int count) {
+        mergePending();
         int actualIndex = nameIndex - 1;
         String[] parts = name.split(" \\| ");
 
@@ -225,13 +497,15 @@ public class LogEntry<T> {
 
         if (this.name.isEmpty()) {
             if (ntPublisher != null) ntPublisher.close();
-            if (entry != null) entry.finish();
+            finishEntry();
             ntPublisher = null;
             entry = null;
             data = null;
             return;
         }
         
-        initializeLogging();
+        if (initialized) {
+            initializeLogging();
+        }
     }
 }
\ No newline at end of file
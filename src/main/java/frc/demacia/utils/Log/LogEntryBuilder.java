@@ -23,6 +23,8 @@ public class LogEntryBuilder<T> {
     private BiConsumer<T[], Long> consumer = null;
     private boolean isSeparated = false;
     private Data<T> data;
+    private double rate = 0;
+    private double deadband = 0;
     
     @SafeVarargs
     LogEntryBuilder(String name, StatusSignal<T>... statusSignals) {
@@ -35,6 +37,11 @@ public class LogEntryBuilder<T> {
         this.name = name;
         this.data = new Data<>(suppliers);
     }
+
+    LogEntryBuilder(String name, Data<T> data) {
+        this.name = name;
+        this.data = data;
+    }
     
     public LogEntryBuilder<T> withLogLevel(LogLevel level) {
         this.logLevel = level;
@@ -57,14 +64,58 @@ public class LogEntryBuilder<T> {
         return this;
     }
 
+    /**
+     * Writes the entry at most rate times per second instead of every cycle.
+     * The entry is kept separate, since a category entry is written as one.
+     * 
+     * @param rate writes per second
+     */
+    public LogEntryBuilder<T> withRate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Log rate must be positive");
+        }
+        this.rate = rate;
+        this.isSeparated = true;
+        return this;
+    }
+
+    /**
+     * Skips writes of numeric values that moved less than epsilon since the last written value.
+     * The entry is kept separate, since a category entry is written as one.
+     * 
+     * @param epsilon the smallest change to log
+     */
+    public LogEntryBuilder<T> withDeadband(double epsilon) {
+        if (epsilon < 0) {
+            throw new IllegalArgumentException("Log deadband cannot be negative");
+        }
+        this.deadband = epsilon;
+        this.isSeparated = true;
+        return this;
+    }
+
     public LogEntryBuilder<T> withIsSeparated(boolean isSeparated) {
-        if (this.consumer == null) {
+        if (this.consumer == null && rate == 0 && deadband == 0) {
             this.isSeparated = isSeparated;
         }
         return this;
     }
     
+    /**
+     * Adds the entry to the {@link LogManager}.
+     * 
+     * @return the log entry, the shared category entry if the data was merged into one
+     */
     public LogEntry<T> build() {
+        return buildHandle().getEntry();
+    }
+
+    /**
+     * Adds the entry to the {@link LogManager}.
+     * 
+     * @return a stable handle to find or remove the entry later
+     */
+    public LogHandle<T> buildHandle() {
         if (LogManager.logManager == null) {
             new LogManager();
         }
@@ -75,11 +126,18 @@ public class LogEntryBuilder<T> {
             throw new IllegalArgumentException("Log level cannot be null");
         }
         
-        LogEntry<T> entry = LogManager.logManager.add(name, data, logLevel, metadata, isSeparated);
+        LogHandle<T> handle = LogManager.logManager.add(name, data, logLevel, metadata, isSeparated);
         
+        LogEntry<T> entry = handle.getEntry();
         if (consumer != null) {
             entry.setConsumer(consumer);
         }
-        return entry;
+        if (rate > 0) {
+            LogManager.logManager.setRate(entry, rate);
+        }
+        if (deadband > 0) {
+            entry.setDeadband(deadband);
+        }
+        return handle;
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package frc.demacia.utils.Log;
+
+import java.util.Arrays;
+
+/**
+ * Slot table behind {@link LogHandle}.
+ *
+ * <p>Each added entry owns one slot, described by primitive columns. For an individual
+ * entry the position is its index in the individual entry list. For an entry merged into
+ * a category the position is its 1 based index in the merged name and the data index and
+ * count locate its values in the merged data. Removed slots go to a free list and bump
+ * their generation.</p>
+ */
+final class LogEntryTable {
+
+    static final int INDIVIDUAL = -1;
+
+    private String[] names = new String[64];
+    private int[] generations = new int[64];
+    private int[] categories = new int[64];
+    private int[] positions = new int[64];
+    private int[] dataIndices = new int[64];
+    private int[] dataCounts = new int[64];
+    private int[] nextFree = new int[64];
+    private boolean[] used = new boolean[64];
+    private int highWater = 0;
+    private int freeHead = -1;
+
+    private int[][] members;
+    private int[] memberCounts;
+
+    private int[] individualSlots = new int[64];
+
+    LogEntryTable(int categoryCount) {
+        members = new int[categoryCount][8];
+        memberCounts = new int[categoryCount];
+    }
+
+    int allocate(String name, int category, int position, int dataIndex, int dataCount) {
+        int slot;
+        if (freeHead != -1) {
+            slot = freeHead;
+            freeHead = nextFree[slot];
+        } else {
+            if (highWater == names.length) grow(names.length * 2);
+            slot = highWater++;
+        }
+        used[slot] = true;
+        names[slot] = name;
+        categories[slot] = category;
+        positions[slot] = position;
+        dataIndices[slot] = dataIndex;
+        dataCounts[slot] = dataCount;
+
+        if (category == INDIVIDUAL) {
+            setIndividualSlot(position, slot);
+        } else {
+            if (memberCounts[category] == members[category].length) {
+                members[category] = Arrays.copyOf(members[category], memberCounts[category] * 2);
+            }
+            members[category][memberCounts[category]++] = slot;
+        }
+        return slot;
+    }
+
+    void release(int slot) {
+        if (!used[slot]) return;
+        int category = categories[slot];
+        if (category != INDIVIDUAL) {
+            int[] list = members[category];
+            for (int i = 0; i < memberCounts[category]; i++) {
+                if (list[i] == slot) {
+                    list[i] = list[--memberCounts[category]];
+                    break;
+                }
+            }
+        }
+        used[slot] = false;
+        generations[slot]++;
+        names[slot] = null;
+        nextFree[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    boolean isValid(int slot, int generation) {
+        return slot >= 0 && slot < highWater && used[slot] && generations[slot] == generation;
+    }
+
+    int generation(int slot) { return generations[slot]; }
+    String name(int slot) { return names[slot]; }
+    int category(int slot) { return categories[slot]; }
+    int position(int slot) { return positions[slot]; }
+    int dataIndex(int slot) { return dataIndices[slot]; }
+    int dataCount(int slot) { return dataCounts[slot]; }
+
+    void setPosition(int slot, int position) { positions[slot] = position; }
+
+    int memberCount(int category) { return memberCounts[category]; }
+    int member(int category, int i) { return members[category][i]; }
+
+    /**
+     * Shifts the indices of the members of a category after one of them was removed.
+     */
+    void shiftAfterRemoval(int category, int removedPosition, int removedDataIndex, int removedCount) {
+        int[] list = members[category];
+        for (int i = 0; i < memberCounts[category]; i++) {
+            int slot = list[i];
+            if (positions[slot] > removedPosition) positions[slot]--;
+            if (dataIndices[slot] >= removedDataIndex + removedCount) dataIndices[slot] -= removedCount;
+        }
+    }
+
+    int individualSlot(int position) { return individualSlots[position]; }
+
+    void setIndividualSlot(int position, int slot) {
+        if (position >= individualSlots.length) individualSlots = Arrays.copyOf(individualSlots, Math.max(position + 1, individualSlots.length * 2));
+        individualSlots[position] = slot;
+        positions[slot] = position;
+    }
+
+    void clear() {
+        for (int slot = 0; slot < highWater; slot++) {
+            if (used[slot]) {
+                used[slot] = false;
+                generations[slot]++;
+                names[slot] = null;
+            }
+        }
+        freeHead = -1;
+        for (int slot = highWater - 1; slot >= 0; slot--) {
+            nextFree[slot] = freeHead;
+            freeHead = slot;
+        }
+        Arrays.fill(memberCounts, 0);
+    }
+
+    private void grow(int capacity) {
+        names = Arrays.copyOf(names, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        dataIndices = Arrays.copyOf(dataIndices, capacity);
+        dataCounts = Arrays.copyOf(dataCounts, capacity);
+        nextFree = Arrays.copyOf(nextFree, capacity);
+        used = Arrays.copyOf(used, capacity);
+    }
+}
@@ -0,0 +1,72 @@
+package frc.demacia.utils.Log;
+
+/**
+ * Stable reference to an entry added with {@link LogEntryBuilder#buildHandle()}.
+ *
+ * <p>A handle points to a slot in the {@link LogManager} entry table. The slot's generation
+ * counter changes when the entry is removed, so a handle to a removed entry stays invalid
+ * even after its slot is reused. Lookup and removal through a handle are O(1).</p>
+ *
+ * <pre>
+ * LogHandle&lt;Double&gt; handle = LogManager.addEntry("Arm test", () -&gt; arm.getAngle()).buildHandle();
+ * // when leaving test mode
+ * handle.remove();
+ * </pre>
+ */
+public final class LogHandle<T> {
+
+    private final int slot;
+    private final int generation;
+
+    LogHandle(int slot, int generation) {
+        this.slot = slot;
+        this.generation = generation;
+    }
+
+    int slot() {
+        return slot;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * Checks if the entry of this handle is still logged.
+     *
+     * @return false after the entry was removed or the entries were cleared
+     */
+    public boolean isValid() {
+        return LogManager.logManager != null && LogManager.logManager.entryTable.isValid(slot, generation);
+    }
+
+    /**
+     * Gets the log entry of this handle.
+     *
+     * <p>Entries that were merged into a category return the shared category entry.</p>
+     *
+     * @return the entry, or null if the handle is no longer valid
+     */
+    @SuppressWarnings("unchecked")
+    public LogEntry<T> getEntry() {
+        return isValid() ? (LogEntry<T>) LogManager.logManager.getEntry(this) : null;
+    }
+
+    /**
+     * Gets the name the entry was added with.
+     *
+     * @return the name, or null if the handle is no longer valid
+     */
+    public String getName() {
+        return isValid() ? LogManager.logManager.entryTable.name(slot) : null;
+    }
+
+    /**
+     * Stops logging this entry.
+     *
+     * @return true if the entry was removed, false if it was already removed
+     */
+    public boolean remove() {
+        return LogManager.removeEntry(this);
+    }
+}
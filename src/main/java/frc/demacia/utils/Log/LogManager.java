@@ -7,6 +7,7 @@ package frc.demacia.utils.Log;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 import com.ctre.phoenix6.StatusSignal;
@@ -15,12 +16,15 @@ import edu.wpi.first.math.Pair;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.struct.Struct;
 import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.demacia.utils.Data;
+import frc.demacia.utils.GlobalContext;
+import frc.demacia.utils.LoopProfiler;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 
 /**
@@ -41,8 +45,23 @@ public class LogManager extends SubsystemBase {
   
   LogEntry<?>[] categoryLogEntries = new LogEntry<?>[16];
 
-  private Map<String, String[]> nameSplitCache = new HashMap<>();
-  private Map<String, Integer[]> entryLocationMap = new HashMap<>();
+  ArrayList<StructEntry<?>> structLogEntries = new ArrayList<>();
+
+  LogEntryTable entryTable = new LogEntryTable(categoryLogEntries.length);
+  private Map<String, LogHandle<?>> handlesByName = new HashMap<>();
+
+  AsyncLogWriter asyncWriter;
+  private NtPublishScheduler ntScheduler = new NtPublishScheduler();
+
+  private boolean frozen = false;
+
+  long cycle = 0;
+
+  private int periodicSection = -1;
+  private int refreshSection = -1;
+  private int writeSection = -1;
+  // phase of the next entry written slower than every cycle
+  private int nextPhase = 0;
 
   public LogManager() {
     if (logManager != null) {
@@ -58,6 +77,10 @@ public class LogManager extends SubsystemBase {
     
     activeConsole = new ArrayList<>();
     log("log manager is ready");
+
+    periodicSection = LoopProfiler.section("LogManager periodic");
+    refreshSection = LoopProfiler.section("Data.refreshAll");
+    writeSection = LoopProfiler.section("LogManager write");
   }
 
   private static void initializeIfNeeded() {
@@ -72,21 +95,98 @@ public class LogManager extends SubsystemBase {
     return new LogEntryBuilder<T>(name, statusSignals);
   }
 
+  /**
+   * Adds an entry for generic suppliers. Their values are boxed and compared as objects every
+   * cycle, log numbers and booleans with {@link frc.demacia.utils.DoubleData#of} or
+   * {@link frc.demacia.utils.BooleanData#of}, which merge into the same category entries.
+   */
   @SuppressWarnings("unchecked")
   public static <T> LogEntryBuilder<T> addEntry(String name, Supplier<T>... suppliers) {
     initializeIfNeeded();
     return new LogEntryBuilder<T>(name, suppliers);
   }
 
+  /**
+   * Adds an entry for an existing data object, for example a {@link frc.demacia.utils.DoubleData}
+   * or {@link frc.demacia.utils.BooleanData} built from typed suppliers.
+   */
+  public static <T> LogEntryBuilder<T> addEntry(String name, Data<T> data) {
+    initializeIfNeeded();
+    return new LogEntryBuilder<T>(name, data);
+  }
+
+  /**
+   * Adds an entry that writes a WPILib struct as one binary record, for example a
+   * {@link frc.demacia.utils.Motors.MotorSample}. The schema is written to the log once,
+   * so readers decode the fields without parsing names.
+   * 
+   * <p>Struct entries are written on the robot loop every cycle the supplier returns a value.
+   * Rate, deadband, freeze merging, NT and async writing do not apply to them.</p>
+   * 
+   * @param name entry name
+   * @param struct struct of the logged type
+   * @param supplier supplies the value to write, or null when nothing changed
+   * @param logLevel only the log part of the level is used, struct entries are not sent to NT
+   * @param metaData metadata of the entry
+   */
+  public static <T> void addStructEntry(String name, Struct<T> struct, Supplier<T> supplier, LogLevel logLevel, String metaData) {
+    addStructEntry(name, struct, supplier, null, logLevel, metaData);
+  }
+
+  /**
+   * Same as {@link #addStructEntry(String, Struct, Supplier, LogLevel, String)} with the
+   * time the value was measured.
+   * 
+   * @param timestamp log time of the supplied value in microseconds, null for the time of the append
+   */
+  public static <T> void addStructEntry(String name, Struct<T> struct, Supplier<T> supplier, LongSupplier timestamp,
+      LogLevel logLevel, String metaData) {
+    initializeIfNeeded();
+    logManager.structLogEntries.add(new StructEntry<>(logManager, name, struct, supplier, timestamp, logLevel, metaData));
+  }
+
+  /**
+   * Ends the registration phase.
+   * 
+   * <p>Until this is called, entries added to a category are only collected. Freezing merges
+   * each category once and creates its DataLog entry and NT publisher exactly once, instead
+   * of recreating them for every added entry. Call it at the end of robot initialization,
+   * otherwise the first periodic() does it. Entries added after the freeze are created
+   * immediately, as before.</p>
+   */
+  public static void freeze() {
+    initializeIfNeeded();
+    if (logManager.frozen) return;
+    logManager.frozen = true;
+
+    for (int i = 0; i < logManager.individualLogEntries.size(); i++) {
+      logManager.individualLogEntries.get(i).initialize();
+    }
+    for (LogEntry<?> e : logManager.categoryLogEntries) {
+      if (e != null) {
+        e.initialize();
+      }
+    }
+  }
+
+  public static boolean isFrozen() {
+    return logManager != null && logManager.frozen;
+  }
+
   public static void removeInComp() {
     initializeIfNeeded();
     if (logManager == null) return; 
 
-    for (int i = 0; i < logManager.individualLogEntries.size(); i++) {
+    for (int i = logManager.individualLogEntries.size() - 1; i >= 0; i--) {
       logManager.individualLogEntries.get(i).removeInComp();
       if (logManager.individualLogEntries.get(i).getLogLevel() == LogLevel.LOG_ONLY_NOT_IN_COMP) {
-        logManager.individualLogEntries.remove(i);
-        i--;
+        logManager.removeIndividual(logManager.entryTable.individualSlot(i));
+      }
+    }
+
+    for (int i = logManager.structLogEntries.size() - 1; i >= 0; i--) {
+      if (logManager.structLogEntries.get(i).getLogLevel() == LogLevel.LOG_ONLY_NOT_IN_COMP) {
+        logManager.structLogEntries.remove(i).finish();
       }
     }
 
@@ -95,8 +195,7 @@ public class LogManager extends SubsystemBase {
         logManager.categoryLogEntries[i].removeInComp();
         if (logManager.categoryLogEntries[i].getLogLevel() == LogLevel.LOG_ONLY_NOT_IN_COMP) {
           logManager.categoryLogEntries[i] = null;
-          int index = i;
-          logManager.entryLocationMap.entrySet().removeIf(entry -> entry.getValue()[0] == index);
+          logManager.releaseCategory(i);
         }
       }
     }
@@ -106,11 +205,16 @@ public class LogManager extends SubsystemBase {
     initializeIfNeeded();
     if (logManager != null) {
       logManager.individualLogEntries.clear();
+      for (StructEntry<?> e : logManager.structLogEntries) {
+        e.finish();
+      }
+      logManager.structLogEntries.clear();
       for (int i = 0; i < logManager.categoryLogEntries.length; i++) {
         logManager.categoryLogEntries[i] = null;
       }
-      logManager.entryLocationMap.clear();
-      logManager.nameSplitCache.clear();
+      logManager.entryTable.clear();
+      logManager.handlesByName.clear();
+      logManager.nextPhase = 0;
     }
   }
   
@@ -118,7 +222,7 @@ public class LogManager extends SubsystemBase {
     initializeIfNeeded();
     if (logManager == null) return 0;
 
-    int count = logManager.individualLogEntries.size();
+    int count = logManager.individualLogEntries.size() + logManager.structLogEntries.size();
     for (LogEntry<?> entry2 : logManager.categoryLogEntries) {
       if (entry2 != null) {
         count++;
@@ -127,81 +231,158 @@ public class LogManager extends SubsystemBase {
     return count;
   }
 
-  public static LogEntry<?> findEntry(String name) {
+  public static LogHandle<?> findHandle(String name) {
     initializeIfNeeded();
     if (logManager == null) return null;
-    
-    Integer[] location = logManager.entryLocationMap.get(name);
-    if (location == null) return null;
-    
-    int categoryIndex = location[0];
-    
-    if (categoryIndex == -1) {
-      int index = location[1];
-      if (index >= 0 && index < logManager.individualLogEntries.size()) {
-        return logManager.individualLogEntries.get(index);
-      }
-    } else {
-      return logManager.categoryLogEntries[categoryIndex];
-    }
-    
-    return null;
+
+    LogHandle<?> handle = logManager.handlesByName.get(name);
+    return (handle != null && handle.isValid()) ? handle : null;
+  }
+
+  public static LogEntry<?> findEntry(String name) {
+    LogHandle<?> handle = findHandle(name);
+    return handle != null ? logManager.getEntry(handle) : null;
   }
 
   public static boolean removeEntry(String name) {
-      initializeIfNeeded();
-      if (logManager == null) return false;
-      
-      Integer[] location = logManager.entryLocationMap.get(name);
-      if (location == null) return false;
-      
-      int categoryIndex = location[0];
-      
-      if (categoryIndex == -1) {
-          int index = location[1];
-          if (index >= 0 && index < logManager.individualLogEntries.size()) {
-              logManager.individualLogEntries.remove(index);
-              logManager.entryLocationMap.remove(name);
-              logManager.nameSplitCache.remove(name);
-              
-              logManager.updateIndicesAfterRemoval(index);
-              return true;
-          }
-      } else {
-          int subIndex = location[1];
-          int dataIndex = location[2];
-          int dataCount = location[3];
-          
-          logManager.entryLocationMap.remove(name);
-          logManager.nameSplitCache.remove(name);
-          
-          LogEntry<?> categoryEntry = logManager.categoryLogEntries[categoryIndex];
-          if (categoryEntry != null) {
-            categoryEntry.removeData(subIndex, dataIndex, dataCount);
-            
-            logManager.updateSubIndicesAfterRemoval(categoryIndex, subIndex);
-            logManager.updateDataIndicesAfterRemoval(categoryIndex, dataIndex, dataCount);
-            
-            if (categoryEntry.getData() == null || 
-              categoryEntry.getName() == null || 
-              categoryEntry.getName().trim().isEmpty()) {
-              logManager.categoryLogEntries[categoryIndex] = null;
-              final int catIndex = categoryIndex;
-              logManager.entryLocationMap.entrySet().removeIf(
-                  entry -> entry.getValue()[0] == catIndex
-              );
-            }
-          }
-          
-          return true;
+    LogHandle<?> handle = findHandle(name);
+    return handle != null && removeEntry(handle);
+  }
+
+  /**
+   * Removes an entry in O(1), except for shifting the indices of the other members
+   * of its category.
+   * 
+   * @param handle handle returned by {@link LogEntryBuilder#buildHandle()}
+   * @return true if the entry was removed, false if the handle was already invalid
+   */
+  public static boolean removeEntry(LogHandle<?> handle) {
+    initializeIfNeeded();
+    if (logManager == null || handle == null || !handle.isValid()) return false;
+
+    LogEntryTable table = logManager.entryTable;
+    int slot = handle.slot();
+    int categoryIndex = table.category(slot);
+
+    if (categoryIndex == LogEntryTable.INDIVIDUAL) {
+      logManager.removeIndividual(slot);
+      return true;
+    }
+
+    int subIndex = table.position(slot);
+    int dataIndex = table.dataIndex(slot);
+    int dataCount = table.dataCount(slot);
+    logManager.releaseSlot(slot);
+
+    LogEntry<?> categoryEntry = logManager.categoryLogEntries[categoryIndex];
+    if (categoryEntry != null) {
+      categoryEntry.removeData(subIndex, dataIndex, dataCount);
+      table.shiftAfterRemoval(categoryIndex, subIndex, dataIndex, dataCount);
+
+      if (categoryEntry.getData() == null || 
+        categoryEntry.getName() == null || 
+        categoryEntry.getName().trim().isEmpty()) {
+        logManager.categoryLogEntries[categoryIndex] = null;
+        logManager.releaseCategory(categoryIndex);
       }
-      
-      return false;
+    }
+    return true;
+  }
+
+  LogEntry<?> getEntry(LogHandle<?> handle) {
+    int slot = handle.slot();
+    int categoryIndex = entryTable.category(slot);
+    if (categoryIndex == LogEntryTable.INDIVIDUAL) {
+      return individualLogEntries.get(entryTable.position(slot));
+    }
+    return categoryLogEntries[categoryIndex];
+  }
+
+  private void removeIndividual(int slot) {
+    int index = entryTable.position(slot);
+    int last = individualLogEntries.size() - 1;
+    if (index != last) {
+      // swap with the last entry so nothing else has to move
+      individualLogEntries.set(index, individualLogEntries.get(last));
+      entryTable.setIndividualSlot(index, entryTable.individualSlot(last));
+    }
+    individualLogEntries.remove(last);
+    releaseSlot(slot);
+  }
+
+  private void releaseCategory(int categoryIndex) {
+    while (entryTable.memberCount(categoryIndex) > 0) {
+      releaseSlot(entryTable.member(categoryIndex, 0));
+    }
+  }
+
+  private void releaseSlot(int slot) {
+    String name = entryTable.name(slot);
+    LogHandle<?> handle = handlesByName.get(name);
+    if (handle != null && handle.slot() == slot) {
+      handlesByName.remove(name);
+    }
+    entryTable.release(slot);
+  }
+
+  /**
+   * Moves DataLog and NetworkTables writes to a background thread.
+   * 
+   * <p>When enabled, periodic() only copies the changed values into a preallocated ring
+   * buffer and the writer thread does the appends and the NT sets the publish scheduler picked.
+   * Disabling flushes what is already queued.</p>
+   * 
+   * @param async true to write from the background thread, false to write in periodic()
+   */
+  public static void setAsyncWriting(boolean async) {
+    initializeIfNeeded();
+    if (async && logManager.asyncWriter == null) {
+      logManager.asyncWriter = new AsyncLogWriter(AsyncLogWriter.DEFAULT_CAPACITY);
+    } else if (!async && logManager.asyncWriter != null) {
+      AsyncLogWriter writer = logManager.asyncWriter;
+      logManager.asyncWriter = null;
+      writer.close();
+    }
+  }
+
+  public static boolean isAsyncWriting() {
+    return logManager != null && logManager.asyncWriter != null;
+  }
+
+  /**
+   * Limits the NetworkTables traffic of log entries.
+   * 
+   * <p>Pending values are published round-robin, {@link LogLevel#LOG_AND_NT} entries first,
+   * until the budget of the cycle is used. The DataLog is not affected. There is no limit
+   * until this is called.</p>
+   * 
+   * @param bytesPerSecond estimated bytes per second for NT values, 0 for no limit
+   */
+  public static void setNtBudget(int bytesPerSecond) {
+    initializeIfNeeded();
+    logManager.ntScheduler.setBudget(bytesPerSecond);
+  }
+
+  /**
+   * Sets how often pending values are published to NetworkTables. Every cycle until this is called.
+   * 
+   * @param rate publish cycles per second, 0 publishes every cycle
+   */
+  public static void setNtRate(double rate) {
+    initializeIfNeeded();
+    logManager.ntScheduler.setRate(rate);
+  }
+
+  public static long getNtPublishedBytes() {
+    return logManager != null ? logManager.ntScheduler.getPublishedBytes() : 0;
   }
 
   public static ConsoleAlert log(Object message, AlertType alertType) {
     initializeIfNeeded();
     DataLogManager.log(String.valueOf(message));
+    if (alertType == AlertType.kError) {
+      BlackBoxRecorder.trigger(String.valueOf(message));
+    }
     
     ConsoleAlert alert = new ConsoleAlert(String.valueOf(message), alertType);
     alert.set(true);
@@ -220,7 +401,17 @@ public class LogManager extends SubsystemBase {
 
   @Override
   public void periodic() {
+    long periodicStart = LoopProfiler.start();
+    if (!frozen) {
+      freeze();
+    }
+    cycle++;
+
+    long refreshStart = LoopProfiler.start();
     Data.refreshAll();
+    LoopProfiler.end(refreshSection, refreshStart);
+
+    BlackBoxRecorder.sample();
 
     for (int i = activeConsole.size() - 1; i >= 0; i--) {
       ConsoleAlert alert = activeConsole.get(i);
@@ -230,6 +421,33 @@ public class LogManager extends SubsystemBase {
       }
     }
 
+    long writeStart = LoopProfiler.start();
+    writeEntries();
+    LoopProfiler.end(writeSection, writeStart);
+
+    LoopProfiler.end(periodicSection, periodicStart);
+  }
+
+  private void writeEntries() {
+    for (int i = 0; i < structLogEntries.size(); i++) {
+      structLogEntries.get(i).log();
+    }
+
+    if (asyncWriter != null) {
+      for (int i = 0; i < individualLogEntries.size(); i++) {
+          individualLogEntries.get(i).enqueue(asyncWriter);
+      }
+
+      for (LogEntry<?> e : categoryLogEntries) {
+        if (e != null){
+          e.enqueue(asyncWriter);
+        }
+      }
+      ntScheduler.run(cycle, individualLogEntries, categoryLogEntries, asyncWriter);
+      asyncWriter.signal();
+      return;
+    }
+
     for (int i = 0; i < individualLogEntries.size(); i++) {
         individualLogEntries.get(i).log();
     }
@@ -239,29 +457,50 @@ public class LogManager extends SubsystemBase {
         e.log();
       }
     }
-  }
 
-  public <T> LogEntry<T> add(String name, Data<T> data, LogLevel logLevel, String metaData, boolean isSeparated) {
-    LogEntry<T> entry = null;
+    ntScheduler.run(cycle, individualLogEntries, categoryLogEntries, null);
+  }
 
+  public <T> LogHandle<T> add(String name, Data<T> data, LogLevel logLevel, String metaData, boolean isSeparated) {
     int categoryIndex = getCategoryIndex(data, logLevel, isSeparated);
 
     if (categoryIndex == -1){
-      entry = new LogEntry<T>(name, data, logLevel, metaData);
+      LogEntry<T> entry = new LogEntry<T>(name, data, logLevel, metaData);
       individualLogEntries.add(entry);
       int index = individualLogEntries.size() - 1;
-      entryLocationMap.put(name, new Integer[] {-1, index, null, null});
+      return newHandle(name, LogEntryTable.INDIVIDUAL, index, 0, 0);
     } else{
-      entry = addToEntryArray(categoryIndex, name, data, metaData);
+      return addToEntryArray(categoryIndex, name, data, metaData);
     }
+  }
 
-    return entry;
+  /**
+   * Sets how often an entry is written. Slow entries get consecutive phases, so they are
+   * spread over the cycles and not all written on the same one.
+   * 
+   * @param entry the entry
+   * @param rateHz writes per second, 0 or above the loop rate writes every cycle
+   */
+  void setRate(LogEntry<?> entry, double rateHz) {
+    int period = rateHz <= 0 ? 1 : (int) Math.max(1, Math.round(1.0 / (rateHz * GlobalContext.getCycleTime())));
+    if (period == 1) {
+      entry.setSchedule(1, 0);
+      return;
+    }
+    entry.setSchedule(period, nextPhase++ % period);
+  }
+
+  private <T> LogHandle<T> newHandle(String name, int category, int position, int dataIndex, int dataCount) {
+    int slot = entryTable.allocate(name, category, position, dataIndex, dataCount);
+    LogHandle<T> handle = new LogHandle<>(slot, entryTable.generation(slot));
+    handlesByName.put(name, handle);
+    return handle;
   }
 
   @SuppressWarnings("unchecked")
-  private <T> LogEntry<T> addToEntryArray(int i, String name, Data<T> data, String metaData) {
-    if (categoryLogEntries[i] != null && categoryLogEntries[i].getData() != null) {
-      boolean groupIsSignal = categoryLogEntries[i].getData().getSignals() != null;
+  private <T> LogHandle<T> addToEntryArray(int i, String name, Data<T> data, String metaData) {
+    if (categoryLogEntries[i] != null && categoryLogEntries[i].getDataLength() > 0) {
+      boolean groupIsSignal = categoryLogEntries[i].isSignalBased();
       boolean newIsSignal = data.getSignals() != null;
 
       if (groupIsSignal != newIsSignal) {
@@ -278,14 +517,8 @@ public class LogManager extends SubsystemBase {
         subIndex = 1;
         dataIndex = 0;
     } else {
-        String[] parts = getCachedSplit(categoryLogEntries[i].getName());
-        subIndex = parts.length + 1;
-
-        if (categoryLogEntries[i].getData().getSignals() != null) {
-          dataIndex = categoryLogEntries[i].getData().getSignals().length;
-        } else if (categoryLogEntries[i].getData().getSuppliers() != null) {
-          dataIndex = categoryLogEntries[i].getData().getSuppliers().length;
-        }
+        subIndex = entryTable.memberCount(i) + 1;
+        dataIndex = categoryLogEntries[i].getDataLength();
 
         try {
             ((LogEntry<T>) categoryLogEntries[i]).addData(name, data, metaData);
@@ -295,9 +528,7 @@ public class LogManager extends SubsystemBase {
     }
 
     int dataLength = (data.getSignals() != null) ? data.getSignals().length : data.getSuppliers().length;
-    entryLocationMap.put(name, new Integer[]{i, subIndex, dataIndex, dataLength});
-    
-    return (LogEntry<T>) categoryLogEntries[i];
+    return newHandle(name, i, subIndex, dataIndex, dataLength);
   }
 
   private LogLevel getLogLevelFromIndex(int i) {
@@ -307,10 +538,6 @@ public class LogManager extends SubsystemBase {
     return LogLevel.LOG_AND_NT;
   }
 
-  private String[] getCachedSplit(String name) {
-    return nameSplitCache.computeIfAbsent(name, k -> k.split(" \\| "));
-  }
-
   private int getCategoryIndex(Data<?> data, LogLevel logLevel, Boolean isSeperated) {
     boolean isSignal = data.getSignals() != null;
     boolean isSupplier = data.getSuppliers() != null;
@@ -341,52 +568,22 @@ public class LogManager extends SubsystemBase {
     return baseIndex + levelOffset;
   }
 
-  private void updateIndicesAfterRemoval(int removedIndex) {
-      for (Map.Entry<String, Integer[]> entry : entryLocationMap.entrySet()) {
-          Integer[] location = entry.getValue();
-          if (location[0] == -1 && location[1] > removedIndex) {
-              entry.setValue(new Integer[]{-1, location[1] - 1, location[2], location[3]});
-          }
-      }
-  }
-
-  private void updateSubIndicesAfterRemoval(int categoryIndex, int removedSubIndex) {
-      for (Map.Entry<String, Integer[]> entry : entryLocationMap.entrySet()) {
-        Integer[] location = entry.getValue();
-          if (location[0] == categoryIndex && location[1] > removedSubIndex) {
-              entry.setValue(new Integer[]{categoryIndex, location[1] - 1, location[2], location[3]});
-          }
-      }
-  }
-
-  private void updateDataIndicesAfterRemoval(int categoryIndex, int removedDataIndex, int removedCount) {
-      for (Map.Entry<String, Integer[]> entry : entryLocationMap.entrySet()) {
-          Integer[] location = entry.getValue();
-          if (location[0] == categoryIndex && 
-              location[2] != null &&
-              location[2] >= removedDataIndex + removedCount) {
-              entry.setValue(new Integer[] {location[0], location[1], location[2] - removedCount, location[3]});
-          }
-      }
-  }
-
   @SuppressWarnings("unchecked")
   public static <T> Pair<String, Supplier<T>>[] getSuppliers(String name) {
-    initializeIfNeeded();
-    Integer[] loc = logManager.entryLocationMap.get(name);
-    if (loc == null) return null;
+    LogHandle<?> handle = findHandle(name);
+    if (handle == null) return null;
 
-    LogEntry<?> entry = (loc[0] == -1) 
-        ? logManager.individualLogEntries.get(loc[1]) 
-        : logManager.categoryLogEntries[loc[0]];
+    LogEntryTable table = logManager.entryTable;
+    boolean isIndividual = table.category(handle.slot()) == LogEntryTable.INDIVIDUAL;
+    LogEntry<?> entry = logManager.getEntry(handle);
 
     if (entry == null || entry.getData() == null) return null;
 
     Supplier<T>[] allSuppliers = (Supplier<T>[]) entry.getData().getSuppliers();
     if (allSuppliers == null) return null; 
 
-    int start = (loc[0] == -1) ? 0 : loc[2];
-    int len = (loc[0] == -1) ? allSuppliers.length : loc[3];
+    int start = isIndividual ? 0 : table.dataIndex(handle.slot());
+    int len = isIndividual ? allSuppliers.length : table.dataCount(handle.slot());
 
     String[] subNames = parseSubNames(name, len);
 
@@ -399,21 +596,20 @@ public class LogManager extends SubsystemBase {
 
   @SuppressWarnings("unchecked")
   public static <T> Pair<String, StatusSignal<T>>[] getSignals(String name) {
-    initializeIfNeeded();
-    Integer[] loc = logManager.entryLocationMap.get(name);
-    if (loc == null) return null;
+    LogHandle<?> handle = findHandle(name);
+    if (handle == null) return null;
 
-    LogEntry<?> entry = (loc[0] == -1) 
-        ? logManager.individualLogEntries.get(loc[1]) 
-        : logManager.categoryLogEntries[loc[0]];
+    LogEntryTable table = logManager.entryTable;
+    boolean isIndividual = table.category(handle.slot()) == LogEntryTable.INDIVIDUAL;
+    LogEntry<?> entry = logManager.getEntry(handle);
 
     if (entry == null || entry.getData() == null) return null;
 
     StatusSignal<T>[] allSignals = (StatusSignal<T>[]) entry.getData().getSignals();
     if (allSignals == null) return null; 
 
-    int start = (loc[0] == -1) ? 0 : loc[2];
-    int len = (loc[0] == -1) ? allSignals.length : loc[3];
+    int start = isIndividual ? 0 : table.dataIndex(handle.slot());
+    int len = isIndividual ? allSignals.length : table.dataCount(handle.slot());
 
     String[] subNames = parseSubNames(name, len);
 
@@ -0,0 +1,55 @@
+package frc.demacia.utils.Log;
+
+import edu.wpi.first.networktables.Publisher;
+import edu.wpi.first.util.datalog.DataLogEntry;
+
+/**
+ * One preallocated slot of the {@link AsyncLogWriter} ring buffer.
+ *
+ * <p>The main loop copies the sampled primitives of a {@link LogEntry} into a slot,
+ * the writer thread reads them back and appends them to the log or sets them on NT. The
+ * value arrays only grow, so after the first few cycles sampling does not allocate.</p>
+ */
+final class LogSample {
+
+    static final int FLOAT = 0;
+    static final int BOOLEAN = 1;
+    static final int STRING = 2;
+
+    DataLogEntry entry;
+    Publisher publisher;
+    long time;
+
+    int type;
+    boolean isArray;
+    int count;
+
+    double[] doubles = new double[16];
+    boolean[] booleans = new boolean[16];
+    String[] strings = new String[16];
+
+    void setDoubles(double[] values) {
+        count = values == null ? 0 : values.length;
+        if (doubles.length < count) doubles = new double[count];
+        if (count > 0) System.arraycopy(values, 0, doubles, 0, count);
+    }
+
+    void setBooleans(boolean[] values) {
+        count = values == null ? 0 : values.length;
+        if (booleans.length < count) booleans = new boolean[count];
+        if (count > 0) System.arraycopy(values, 0, booleans, 0, count);
+    }
+
+    void setStrings(String[] values) {
+        count = values == null ? 0 : values.length;
+        if (strings.length < count) strings = new String[count];
+        if (count > 0) System.arraycopy(values, 0, strings, 0, count);
+    }
+
+    void clear() {
+        entry = null;
+        publisher = null;
+        for (int i = 0; i < count && i < strings.length; i++) strings[i] = null;
+        count = 0;
+    }
+}
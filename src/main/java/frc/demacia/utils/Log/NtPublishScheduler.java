@@ -0,0 +1,107 @@
+package frc.demacia.utils.Log;
+
+import java.util.ArrayList;
+
+import frc.demacia.utils.GlobalContext;
+import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
+
+/**
+ * Publishes changed entries to NetworkTables at a lower rate than the DataLog, within a
+ * bytes per second budget.
+ *
+ * <p>{@link LogEntry} only marks its NT value as pending. Every publish cycle the scheduler
+ * refills its budget and walks the entries round-robin, {@link LogLevel#LOG_AND_NT} entries
+ * first, publishing pending values until the budget runs out. Each walk continues where the
+ * previous one stopped, so every entry gets its turn even when the budget is small. A value
+ * is always the latest one when it is published, older values of a pending entry are skipped.</p>
+ *
+ * <p>The scheduler always decides on the robot loop what is published. With the
+ * {@link AsyncLogWriter} the chosen values go through its ring and the NT sets run on the
+ * writer thread, without it they are set right away.</p>
+ *
+ * <p>By default there is no budget and values are published every cycle, the same as writing
+ * them in {@link LogEntry#log()}. Limits are opt-in with {@link LogManager#setNtBudget(int)}
+ * and {@link LogManager#setNtRate(double)}.</p>
+ */
+class NtPublishScheduler {
+
+    // 0 is no limit
+    private int bytesPerSecond = 0;
+    private int period = 1;
+    private double tokens = 0;
+
+    private int priorityCursor = 0;
+    private int normalCursor = 0;
+
+    private long publishedBytes = 0;
+    private long skipped = 0;
+
+    /**
+     * @param bytesPerSecond budget for NT values, 0 for no limit
+     */
+    void setBudget(int bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+    }
+
+    /**
+     * @param rate publish cycles per second, 0 or above the loop rate publishes every cycle
+     */
+    void setRate(double rate) {
+        period = rate <= 0 ? 1 : (int) Math.max(1, Math.round(1.0 / (rate * GlobalContext.getCycleTime())));
+    }
+
+    long getPublishedBytes() {
+        return publishedBytes;
+    }
+
+    /**
+     * Number of walks that ran out of budget with pending entries left for the next cycle.
+     */
+    long getSkippedCycles() {
+        return skipped;
+    }
+
+    /**
+     * @param writer async writer to hand the values to, null to publish on this thread
+     */
+    void run(long cycle, ArrayList<LogEntry<?>> individualEntries, LogEntry<?>[] categoryEntries, AsyncLogWriter writer) {
+        if (cycle % period != 0) return;
+
+        if (bytesPerSecond == 0) {
+            tokens = Double.MAX_VALUE;
+        } else {
+            // unused budget is not saved up, a debt from a large entry is paid back first
+            double cycleBudget = bytesPerSecond * period * GlobalContext.getCycleTime();
+            tokens = Math.min(tokens + cycleBudget, cycleBudget);
+        }
+
+        priorityCursor = publish(true, priorityCursor, individualEntries, categoryEntries, writer);
+        normalCursor = publish(false, normalCursor, individualEntries, categoryEntries, writer);
+    }
+
+    private int publish(boolean priority, int cursor, ArrayList<LogEntry<?>> individualEntries, LogEntry<?>[] categoryEntries,
+            AsyncLogWriter writer) {
+        int size = individualEntries.size() + categoryEntries.length;
+        if (size == 0) return 0;
+        if (cursor >= size) cursor = 0;
+
+        for (int n = 0; n < size; n++) {
+            int index = (cursor + n) % size;
+            LogEntry<?> entry = index < individualEntries.size()
+                ? individualEntries.get(index)
+                : categoryEntries[index - individualEntries.size()];
+
+            if (entry == null || !entry.isNtPending() || (entry.getLogLevel() == LogLevel.LOG_AND_NT) != priority) {
+                continue;
+            }
+            if (tokens <= 0) {
+                skipped++;
+                return index;
+            }
+            int bytes = entry.publishNt(writer);
+            tokens -= bytes;
+            publishedBytes += bytes;
+        }
+        return cursor;
+    }
+}
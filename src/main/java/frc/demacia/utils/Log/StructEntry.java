@@ -0,0 +1,55 @@
+package frc.demacia.utils.Log;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.util.datalog.StructLogEntry;
+import edu.wpi.first.util.struct.Struct;
+import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
+
+/*
+ * Log entry for a WPILib struct, written as one binary record with its schema in the log.
+ * The supplier returns null on cycles where nothing changed.
+ *
+ * Struct entries are simpler than LogEntry: they are created immediately and not merged on
+ * freeze, have no rate or deadband, are never sent to NT and are appended on the robot loop
+ * even with async writing. The change check of the supplier is their only filter.
+ */
+class StructEntry<T> {
+
+    private final String name;
+    private final LogLevel logLevel;
+    private final Supplier<T> supplier;
+    private final LongSupplier timestamp;
+    private StructLogEntry<T> entry;
+
+    StructEntry(LogManager logManager, String name, Struct<T> struct, Supplier<T> supplier, LongSupplier timestamp,
+            LogLevel logLevel, String metaData) {
+        this.name = name;
+        this.logLevel = logLevel;
+        this.supplier = supplier;
+        this.timestamp = timestamp;
+        entry = StructLogEntry.create(logManager.log, name, struct, metaData);
+    }
+
+    void log() {
+        T value = supplier.get();
+        if (value != null) {
+            // 0 is stamped with the time of the append
+            entry.append(value, timestamp != null ? timestamp.getAsLong() : 0);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    void finish() {
+        if (entry != null) entry.finish();
+        entry = null;
+    }
+}
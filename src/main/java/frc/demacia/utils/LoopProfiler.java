@@ -0,0 +1,168 @@
+package frc.demacia.utils;
+
+import java.util.Arrays;
+
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.WrapperCommand;
+import frc.demacia.utils.Log.LogManager;
+import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
+
+/**
+ * Measures how long each part of the robot loop takes.
+ *
+ * <p>A section is registered once and timed with {@link System#nanoTime()} around its code.
+ * Durations go into a preallocated window per section, so timing a section does not allocate.
+ * Once a second the p50, p99 and max of every section are computed and logged as
+ * {@code "Profiler/<section>: p50, p99, max"} in milliseconds.</p>
+ *
+ * <pre>
+ * private final int profilerSection = LoopProfiler.section("Arm periodic");
+ *
+ * public void periodic() {
+ *     long start = LoopProfiler.start();
+ *     ...
+ *     LoopProfiler.end(profilerSection, start);
+ * }
+ * </pre>
+ *
+ * <p>{@link #endLoop(long)} times the whole loop and raises a console alert with the slowest
+ * section when the loop is over the cycle time. Commands are timed by wrapping them with
+ * {@link #profile(Command)}.</p>
+ */
+public class LoopProfiler {
+
+    private static final int WINDOW = 250;
+    private static final int STATS_PERIOD = 50;
+    private static final double ALERT_INTERVAL_SECONDS = 1;
+
+    private static boolean enabled = true;
+
+    private static String[] names = new String[16];
+    private static long[][] samples = new long[16][];
+    private static int[] counts = new int[16];
+    private static int[] cursors = new int[16];
+    private static long[] cycleNanos = new long[16];
+    private static double[][] stats = new double[16][];
+    private static int sectionCount = 0;
+
+    private static final long[] sorted = new long[WINDOW];
+    private static int loopSection = -1;
+    private static int cycle = 0;
+    private static long lastAlertNanos = 0;
+
+    /**
+     * Registers a section and adds its log entry.
+     *
+     * @param name name of the section
+     * @return id of the section, for {@link #end(int, long)}
+     */
+    public static int section(String name) {
+        if (sectionCount == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            samples = Arrays.copyOf(samples, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            cursors = Arrays.copyOf(cursors, capacity);
+            cycleNanos = Arrays.copyOf(cycleNanos, capacity);
+            stats = Arrays.copyOf(stats, capacity);
+        }
+        int id = sectionCount++;
+        names[id] = name;
+        samples[id] = new long[WINDOW];
+        double[] sectionStats = new double[3];
+        stats[id] = sectionStats;
+
+        LogManager.addEntry("Profiler/" + name + ": p50, p99, max", DoubleData.ofArray(() -> sectionStats))
+            .withLogLevel(LogLevel.LOG_ONLY)
+            .build();
+        return id;
+    }
+
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start for a section.
+     *
+     * @param section id from {@link #section(String)}
+     * @param startNanos value returned by {@link #start()}
+     */
+    public static void end(int section, long startNanos) {
+        if (!enabled || section < 0) return;
+        long duration = System.nanoTime() - startNanos;
+        samples[section][cursors[section]] = duration;
+        cursors[section] = (cursors[section] + 1) % WINDOW;
+        if (counts[section] < WINDOW) counts[section]++;
+        cycleNanos[section] += duration;
+    }
+
+    /**
+     * Ends a robot loop that started at startNanos. Call it at the end of robotPeriodic().
+     *
+     * @param startNanos value returned by {@link #start()} at the start of the loop
+     */
+    public static void endLoop(long startNanos) {
+        if (!enabled) return;
+        if (loopSection == -1) loopSection = section("Loop");
+        end(loopSection, startNanos);
+
+        long loopNanos = cycleNanos[loopSection];
+        long budgetNanos = (long) (GlobalContext.getCycleTime() * 1e9);
+        if (loopNanos > budgetNanos && startNanos - lastAlertNanos > ALERT_INTERVAL_SECONDS * 1e9) {
+            lastAlertNanos = startNanos;
+            int slowest = -1;
+            for (int i = 0; i < sectionCount; i++) {
+                if (i != loopSection && (slowest == -1 || cycleNanos[i] > cycleNanos[slowest])) slowest = i;
+            }
+            LogManager.log(String.format("Loop took %.1f ms, over %.1f ms%s", loopNanos / 1e6, budgetNanos / 1e6,
+                slowest == -1 ? "" : String.format(", slowest: %s %.1f ms", names[slowest], cycleNanos[slowest] / 1e6)),
+                AlertType.kWarning);
+        }
+        Arrays.fill(cycleNanos, 0, sectionCount, 0);
+
+        if (++cycle >= STATS_PERIOD) {
+            cycle = 0;
+            updateStats();
+        }
+    }
+
+    private static void updateStats() {
+        for (int i = 0; i < sectionCount; i++) {
+            int count = counts[i];
+            if (count == 0) continue;
+            System.arraycopy(samples[i], 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            stats[i][0] = sorted[(count - 1) / 2] / 1e6;
+            stats[i][1] = sorted[(int) Math.ceil(count * 0.99) - 1] / 1e6;
+            stats[i][2] = sorted[count - 1] / 1e6;
+        }
+    }
+
+    /**
+     * Wraps a command so its execute() is timed as a section named after the command.
+     *
+     * @param command the command to time
+     * @return the wrapped command
+     */
+    public static Command profile(Command command) {
+        int section = section(command.getName() + " execute");
+        return new WrapperCommand(command) {
+            @Override
+            public void execute() {
+                long start = start();
+                m_command.execute();
+                end(section, start);
+            }
+        };
+    }
+
+    public static void setEnabled(boolean enabled) {
+        LoopProfiler.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -15,6 +15,7 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.demacia.utils.Log.LogManager;
 import frc.demacia.utils.LookUpTable;
+import frc.demacia.utils.LoopProfiler;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Motors.MotorInterface;
 import frc.demacia.utils.Sensors.SensorInterface;
@@ -328,9 +329,12 @@ public class BaseMechanism<T extends BaseMechanism<T>> extends SubsystemBase{
     protected HashMap<String, MechanismAction> actions = new HashMap<>();
     protected HashMap<String, Command> actionCommands = new HashMap<>();
 
+    private int profilerSection;
+
     public BaseMechanism(String name) {
         this.name = name;
         SmartDashboard.putData(this);
+        profilerSection = LoopProfiler.section(name + " periodic");
     }
 
     @SuppressWarnings("unchecked")
@@ -769,8 +773,10 @@ public class BaseMechanism<T extends BaseMechanism<T>> extends SubsystemBase{
     
     @Override
     public void periodic(){
+        long start = LoopProfiler.start();
         if (stopSupplier.get()){
             stopAll();
         }
+        LoopProfiler.end(profilerSection, start);
     }
 }
@@ -0,0 +1,154 @@
+package frc.demacia.utils.Motors;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import frc.demacia.utils.Log.LogManager;
+import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
+
+/**
+ * One sample of motor telemetry, logged as a WPILib struct.
+ *
+ * <p>Every motor writes one {@code struct:MotorSample} entry named after the motor. The
+ * fields are doubles in a fixed order described by the schema in the log, so readers
+ * decode them without parsing names or guessing array sizes.</p>
+ *
+ * <pre>
+ * MotorSample.addLog(this, LogLevel.LOG_ONLY_NOT_IN_COMP);
+ * </pre>
+ *
+ * <p>The sample is mutable so a motor can refill the same object every cycle.</p>
+ */
+public class MotorSample implements StructSerializable {
+
+    public static final MotorSampleStruct struct = new MotorSampleStruct();
+
+    public double position;
+    public double velocity;
+    public double acceleration;
+    public double voltage;
+    public double current;
+    public double closedLoopError;
+    public double closedLoopSetpoint;
+
+    public MotorSample() {
+    }
+
+    public MotorSample(double position, double velocity, double acceleration, double voltage,
+            double current, double closedLoopError, double closedLoopSetpoint) {
+        this.position = position;
+        this.velocity = velocity;
+        this.acceleration = acceleration;
+        this.voltage = voltage;
+        this.current = current;
+        this.closedLoopError = closedLoopError;
+        this.closedLoopSetpoint = closedLoopSetpoint;
+    }
+
+    /**
+     * Reads the current values of a motor into this sample.
+     *
+     * @param motor the motor to sample
+     * @return true if any value changed since the last update
+     */
+    public boolean update(MotorInterface motor) {
+        double newPosition = motor.getCurrentPosition();
+        double newVelocity = motor.getCurrentVelocity();
+        double newAcceleration = motor.getCurrentAcceleration();
+        double newVoltage = motor.getCurrentVoltage();
+        double newCurrent = motor.getCurrentCurrent();
+        double newError = motor.getCurrentClosedLoopError();
+        double newSetpoint = motor.getCurrentClosedLoopSP();
+
+        boolean changed = newPosition != position || newVelocity != velocity
+            || newAcceleration != acceleration || newVoltage != voltage
+            || newCurrent != current || newError != closedLoopError
+            || newSetpoint != closedLoopSetpoint;
+
+        position = newPosition;
+        velocity = newVelocity;
+        acceleration = newAcceleration;
+        voltage = newVoltage;
+        current = newCurrent;
+        closedLoopError = newError;
+        closedLoopSetpoint = newSetpoint;
+        return changed;
+    }
+
+    /**
+     * Adds a struct log entry for a motor, named after the motor.
+     *
+     * @param motor the motor to log
+     * @param logLevel the log level of the entry
+     */
+    public static void addLog(MotorInterface motor, LogLevel logLevel) {
+        addLog(motor, null, logLevel);
+    }
+
+    /**
+     * Adds a struct log entry for a motor, stamped with the time the values were measured.
+     *
+     * @param motor the motor to log
+     * @param timestamp log time of the sample in microseconds, null for the time of the append
+     * @param logLevel the log level of the entry
+     */
+    public static void addLog(MotorInterface motor, LongSupplier timestamp, LogLevel logLevel) {
+        MotorSample sample = new MotorSample();
+        LogManager.addStructEntry(motor.name(), struct, () -> sample.update(motor) ? sample : null, timestamp, logLevel, "motor");
+    }
+
+    public static class MotorSampleStruct implements Struct<MotorSample> {
+
+        @Override
+        public Class<MotorSample> getTypeClass() {
+            return MotorSample.class;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "MotorSample";
+        }
+
+        @Override
+        public int getSize() {
+            return kSizeDouble * 7;
+        }
+
+        @Override
+        public String getSchema() {
+            return "double position;double velocity;double acceleration;double voltage;"
+                + "double current;double closedLoopError;double closedLoopSetpoint";
+        }
+
+        @Override
+        public MotorSample unpack(ByteBuffer bb) {
+            MotorSample sample = new MotorSample();
+            unpackInto(sample, bb);
+            return sample;
+        }
+
+        @Override
+        public void unpackInto(MotorSample out, ByteBuffer bb) {
+            out.position = bb.getDouble();
+            out.velocity = bb.getDouble();
+            out.acceleration = bb.getDouble();
+            out.voltage = bb.getDouble();
+            out.current = bb.getDouble();
+            out.closedLoopError = bb.getDouble();
+            out.closedLoopSetpoint = bb.getDouble();
+        }
+
+        @Override
+        public void pack(ByteBuffer bb, MotorSample value) {
+            bb.putDouble(value.position);
+            bb.putDouble(value.velocity);
+            bb.putDouble(value.acceleration);
+            bb.putDouble(value.voltage);
+            bb.putDouble(value.current);
+            bb.putDouble(value.closedLoopError);
+            bb.putDouble(value.closedLoopSetpoint);
+        }
+    }
+}
@@ -76,19 +76,8 @@ public class SparkFlexMotor extends SparkFlex implements Sendable, MotorInterfac
     }
   }
 
-  @SuppressWarnings("unchecked")
   private void addLog() {
-    LogManager.addEntry(name + ": Position, Velocity, Acceleration, Voltage, Current, CloseLoopError, CloseLoopSP", 
-        () -> getCurrentPosition(),
-        () -> getCurrentVelocity(),
-        () -> getCurrentAcceleration(),
-        () -> getCurrentVoltage(),
-        () -> getCurrentCurrent(),
-        () -> getCurrentClosedLoopError(),
-        () -> getCurrentClosedLoopSP()
-      ).withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP)
-      .withIsMotor()
-      .build();
+    MotorSample.addLog(this, LogLevel.LOG_ONLY_NOT_IN_COMP);
   }
 
   public void checkElectronics() {
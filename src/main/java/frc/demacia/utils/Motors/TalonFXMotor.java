@@ -1,6 +1,5 @@
 package frc.demacia.utils.Motors;
 
-import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.DutyCycleOut;
 import com.ctre.phoenix6.controls.MotionMagicExpoVoltage;
@@ -20,10 +19,13 @@ import edu.wpi.first.units.measure.AngularAcceleration;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Voltage;
+import edu.wpi.first.util.WPIUtilJNI;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.demacia.utils.Data;
+import frc.demacia.utils.DoubleData;
+import frc.demacia.utils.SignalRegistry;
 import frc.demacia.utils.UpdateArray;
 import frc.demacia.utils.Log.LogManager;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
@@ -44,13 +46,22 @@ public class TalonFXMotor extends TalonFX implements MotorInterface {
     PositionVoltage positionVoltage = new PositionVoltage(0).withSlot(slot);
 
     Data<ControlModeValue> controlModeSignal;
-    Data<Double> closedLoopSPSignal;
-    Data<Double> closedLoopErrorSignal;
-    Data<Angle> positionSignal;
-    Data<AngularVelocity> velocitySignal;
-    Data<AngularAcceleration> accelerationSignal;
-    Data<Voltage> voltageSignal;
-    Data<Current> currentSignal;
+    DoubleData closedLoopSPSignal;
+    DoubleData closedLoopErrorSignal;
+    DoubleData positionSignal;
+    DoubleData velocitySignal;
+    DoubleData accelerationSignal;
+    DoubleData voltageSignal;
+    DoubleData currentSignal;
+
+    // typed data for callers of the getters, made on the first call
+    Data<Double> closedLoopSPData;
+    Data<Double> closedLoopErrorData;
+    Data<Angle> positionData;
+    Data<AngularVelocity> velocityData;
+    Data<AngularAcceleration> accelerationData;
+    Data<Voltage> voltageData;
+    Data<Current> currentData;
 
     public TalonFXMotor(TalonFXConfig config) {
         super(config.id, config.canbus.canbus);
@@ -141,38 +152,46 @@ public class TalonFXMotor extends TalonFX implements MotorInterface {
         }
     }
 
-    @SuppressWarnings("unchecked")
     private void setSignals() {
+        // one batched refresh per bus for every motor, the Data objects below read from it
+        SignalRegistry.register(config.canbus.canbus,
+            getControlMode(),
+            getClosedLoopReference(),
+            getClosedLoopError(),
+            getPosition(),
+            getVelocity(),
+            getAcceleration(),
+            getMotorVoltage(),
+            getStatorCurrent());
         controlModeSignal = new Data<>(getControlMode());
-        closedLoopSPSignal = new Data<>(getClosedLoopReference());
-        closedLoopErrorSignal = new Data<>(getClosedLoopError());
-        positionSignal = new Data<>(getPosition());
-        velocitySignal = new Data<>(getVelocity());
-        accelerationSignal = new Data<>(getAcceleration());
-        voltageSignal = new Data<>(getMotorVoltage());
-        currentSignal = new Data<>(getStatorCurrent());
+        closedLoopSPSignal = new DoubleData(getClosedLoopReference());
+        closedLoopErrorSignal = new DoubleData(getClosedLoopError());
+        positionSignal = new DoubleData(getPosition());
+        velocitySignal = new DoubleData(getVelocity());
+        accelerationSignal = new DoubleData(getAcceleration());
+        voltageSignal = new DoubleData(getMotorVoltage());
+        currentSignal = new DoubleData(getStatorCurrent());
     }
 
-    @SuppressWarnings("unchecked")
     private void addLog() {
-        LogManager.addEntry(name + ": Position, Velocity, Acceleration, Voltage, Current, CloseLoopError, CloseLoopSP",  new StatusSignal[] {
-            positionSignal.getSignal(),
-            velocitySignal.getSignal(),
-            accelerationSignal.getSignal(),
-            voltageSignal.getSignal(),
-            currentSignal.getSignal(),
-            closedLoopErrorSignal.getSignal(),
-            closedLoopSPSignal.getSignal(),
-            }).withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP)
-            .withIsMotor().build();
+        MotorSample.addLog(this, this::getSampleTime, LogLevel.LOG_ONLY_NOT_IN_COMP);
         LogManager.addEntry(name + " ControlMode", 
             () -> getCurrentControlMode())
             .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
     }
 
+    /*
+     * Log time of the last refreshed position frame: the signal latency is the age of the
+     * frame, the log uses the same clock as WPIUtilJNI.now()
+     */
+    private long getSampleTime() {
+        return WPIUtilJNI.now() - (long) (positionSignal.getSignal().getTimestamp().getLatency() * 1e6);
+    }
+
     public void checkElectronics() {
         int fault = getFaultField().getValue();
         if (fault != 0) {
+            // kError also triggers the BlackBoxRecorder
             LogManager.log(name + " have fault num: " + fault, AlertType.kError);
         }
     }
@@ -290,28 +309,23 @@ public class TalonFXMotor extends TalonFX implements MotorInterface {
     }
 
     public double getCurrentClosedLoopSP() {
-        Double value = closedLoopSPSignal.getDouble();
-        return value != null ? value : 0.0;
+        return closedLoopSPSignal.getAsDouble();
     }
     
     public double getCurrentClosedLoopError() {
-        Double value = closedLoopErrorSignal.getDouble();
-        return value != null ? value : 0.0;
+        return closedLoopErrorSignal.getAsDouble();
     }
     
     public double getCurrentPosition() {
-        Double value = positionSignal.getDouble();
-        return value != null ? value : 0.0;
+        return positionSignal.getAsDouble();
     }
     
     public double getCurrentVelocity() {
-        Double value = velocitySignal.getDouble();
-        return value != null ? value : 0.0;
+        return velocitySignal.getAsDouble();
     }
     
     public double getCurrentAcceleration() {
-        Double value = accelerationSignal.getDouble();
-        return value != null ? value : 0.0;
+        return accelerationSignal.getAsDouble();
     }
     
     public double getCurrentAngle() {
@@ -324,13 +338,11 @@ public class TalonFXMotor extends TalonFX implements MotorInterface {
     }
     
     public double getCurrentVoltage() {
-        Double value = voltageSignal.getDouble();
-        return value != null ? value : 0.0;
+        return voltageSignal.getAsDouble();
     }
     
     public double getCurrentCurrent() {
-        Double value = currentSignal.getDouble();
-        return value != null ? value : 0.0;
+        return currentSignal.getAsDouble();
     }
 
     /**
@@ -471,24 +483,31 @@ public class TalonFXMotor extends TalonFX implements MotorInterface {
       setPosition(position);
     }
     public Data<Double> getClosedLoopErrorSignal() {
-        return closedLoopErrorSignal;
+        if (closedLoopErrorData == null) closedLoopErrorData = new Data<>(getClosedLoopError());
+        return closedLoopErrorData;
     }
     public Data<Double> getClosedLoopSPSignal() {
-        return closedLoopSPSignal;
+        if (closedLoopSPData == null) closedLoopSPData = new Data<>(getClosedLoopReference());
+        return closedLoopSPData;
     }
     public Data<Angle> getPositionSignal() {
-        return positionSignal;
+        if (positionData == null) positionData = new Data<>(getPosition());
+        return positionData;
     }
     public Data<AngularVelocity> getVelocitySignal() {
-        return velocitySignal;
+        if (velocityData == null) velocityData = new Data<>(getVelocity());
+        return velocityData;
     }
     public Data<AngularAcceleration> getAccelerationSignal() {
-        return accelerationSignal;
+        if (accelerationData == null) accelerationData = new Data<>(getAcceleration());
+        return accelerationData;
     }
     public Data<Voltage> getVoltageSignal() {
-        return voltageSignal;
+        if (voltageData == null) voltageData = new Data<>(getMotorVoltage());
+        return voltageData;
     }
     public Data<Current> getCurrentSignal() {
-        return currentSignal;
+        if (currentData == null) currentData = new Data<>(getStatorCurrent());
+        return currentData;
     }
 }
\ No newline at end of file
@@ -78,18 +78,8 @@ public class TalonSRXMotor extends TalonSRX implements MotorInterface,Sendable {
         configMotionCruiseVelocity((int) (config.maxVelocity/ config.motorRatio));
     }
 
-    @SuppressWarnings("unchecked")
     private void addLog() {
-      LogManager.addEntry(name + ": position, Velocity, Acceleration, Voltage, Current, CloseLoopError, CloseLoopSP", 
-        () -> getCurrentPosition(),
-        () -> getCurrentVelocity(),
-        () -> getCurrentAcceleration(),
-        () -> getCurrentVoltage(),
-        () -> getCurrentCurrent(),
-        () -> getCurrentClosedLoopError(),
-        () -> getCurrentClosedLoopSP()
-        ).withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP)
-        .withIsMotor().build();
+      MotorSample.addLog(this, LogLevel.LOG_ONLY_NOT_IN_COMP);
     }
 
     public void checkElectronics() {
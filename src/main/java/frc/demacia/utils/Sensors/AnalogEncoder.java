@@ -1,6 +1,7 @@
 package frc.demacia.utils.Sensors;
 
 import edu.wpi.first.util.sendable.SendableBuilder;
+import frc.demacia.utils.DoubleData;
 import frc.demacia.utils.UpdateArray;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Log.LogManager;
@@ -58,7 +59,7 @@ public class AnalogEncoder extends edu.wpi.first.wpilibj.AnalogEncoder implement
 
     @SuppressWarnings("unchecked")
     private void addLog() {
-        LogManager.addEntry(name + " Position", this::get)
+        LogManager.addEntry(name + " Position", DoubleData.of(this::get))
         .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
     }
 
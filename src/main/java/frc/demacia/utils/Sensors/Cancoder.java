@@ -11,6 +11,7 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import frc.demacia.utils.UpdateArray;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
+import frc.demacia.utils.Log.BlackBoxRecorder;
 import frc.demacia.utils.Log.LogManager;
 
 /**
@@ -103,6 +104,7 @@ public class Cancoder extends CANcoder implements AnalogSensorInterface{
      */
     public void checkElectronics() {
         if (getFaultField().getValue() != 0) {
+            BlackBoxRecorder.trigger(name + " fault " + getFaultField().getValue());
             LogManager.log(name + " have a fault: " + getFaultField().getValue());
         }
     }
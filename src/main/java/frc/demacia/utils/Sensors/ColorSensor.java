@@ -8,6 +8,7 @@ import com.revrobotics.ColorSensorV3;
 import com.revrobotics.ColorMatch;
 import com.revrobotics.ColorMatchResult;
 
+import frc.demacia.utils.DoubleData;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Log.LogManager;
 
@@ -66,7 +67,7 @@ public class ColorSensor extends ColorSensorV3 implements ColorSensorInterface,
         LogManager.addEntry(name + " Color", () -> get()
         ).withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
 
-        LogManager.addEntry(name + " Proximity", this::getProximity)
+        LogManager.addEntry(name + " Proximity", DoubleData.of(this::getProximity))
             .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
 
         LogManager.addEntry(name + " Matched Color", this::getMatchedColorName)
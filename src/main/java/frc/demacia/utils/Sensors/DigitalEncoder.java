@@ -3,6 +3,7 @@ package frc.demacia.utils.Sensors;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import frc.demacia.utils.DoubleData;
 import frc.demacia.utils.UpdateArray;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Log.LogManager;
@@ -60,7 +61,7 @@ public class DigitalEncoder extends DutyCycleEncoder implements AnalogSensorInte
 
     @SuppressWarnings("unchecked")
     private void addLog() {
-        LogManager.addEntry(name + " Position", this::get)
+        LogManager.addEntry(name + " Position", DoubleData.of(this::get))
         .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
     }
 
@@ -2,6 +2,7 @@ package frc.demacia.utils.Sensors;
 
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.DigitalInput;
+import frc.demacia.utils.BooleanData;
 import frc.demacia.utils.UpdateArray;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Log.LogManager;
@@ -53,7 +54,7 @@ public class LimitSwitch extends DigitalInput implements DigitalSensorInterface{
 
     @SuppressWarnings("unchecked")
     private void addLog() {
-        LogManager.addEntry(name + " isTriggered", this::get)
+        LogManager.addEntry(name + " isTriggered", BooleanData.of(this::get))
         .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
     }
 
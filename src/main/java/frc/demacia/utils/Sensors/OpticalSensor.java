@@ -1,6 +1,7 @@
 package frc.demacia.utils.Sensors;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.AnalogInput;
+import frc.demacia.utils.DoubleData;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Log.LogManager;
 
@@ -41,7 +42,7 @@ public class OpticalSensor extends AnalogInput implements SensorInterface {
     
     @SuppressWarnings("unchecked")
     private void addLog() {
-        LogManager.addEntry(name + " value",  () -> get())
+        LogManager.addEntry(name + " value", DoubleData.of(this::get))
         .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
 
     }
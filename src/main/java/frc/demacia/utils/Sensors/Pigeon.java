@@ -9,6 +9,7 @@ import edu.wpi.first.units.measure.LinearAcceleration;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import frc.demacia.utils.UpdateArray;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
+import frc.demacia.utils.Log.BlackBoxRecorder;
 import frc.demacia.utils.Log.LogManager;
 
 import com.ctre.phoenix6.StatusSignal;
@@ -138,6 +139,7 @@ public class Pigeon extends Pigeon2 implements SensorInterface{
      */
     public void checkElectronics() {
         if (getFaultField().getValue() != 0) {
+            BlackBoxRecorder.trigger(name + " fault " + getFaultField().getValue());
             LogManager.log(name + " have a fault: " + getFaultField().getValue());
         }
     }
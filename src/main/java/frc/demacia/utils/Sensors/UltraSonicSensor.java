@@ -4,6 +4,7 @@ import java.util.Queue;
 
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.Ultrasonic;
+import frc.demacia.utils.DoubleData;
 import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Log.LogManager;
 
@@ -69,7 +70,7 @@ public class UltraSonicSensor extends Ultrasonic implements AnalogSensorInterfac
 
     @SuppressWarnings("unchecked")
     private void addLog() {
-        LogManager.addEntry(name + " range", () -> getRangeMeters())
+        LogManager.addEntry(name + " range", DoubleData.of(this::getRangeMeters))
         .withLogLevel(LogLevel.LOG_ONLY_NOT_IN_COMP).build();
     }
 
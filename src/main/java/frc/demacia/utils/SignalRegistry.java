@@ -0,0 +1,130 @@
+package frc.demacia.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.CANBus;
+import com.ctre.phoenix6.StatusCode;
+
+/**
+ * Central registry that refreshes every registered status signal once per cycle.
+ *
+ * <p>Signals are grouped by CAN bus and each group is refreshed with a single
+ * {@link BaseStatusSignal#refreshAll} call, instead of one JNI call per {@link Data}.
+ * {@link Data} objects built from registered signals skip their own refresh and read
+ * the values of the shared refresh, so all of them see the same timestamps.</p>
+ *
+ * <pre>
+ * SignalRegistry.register(config.canbus.canbus, getPosition(), getVelocity());
+ * DoubleData position = new DoubleData(getPosition()); // reads the shared refresh
+ * </pre>
+ *
+ * <p>{@link #refreshAll()} is called by {@link Data#refreshAll()}.</p>
+ */
+public class SignalRegistry {
+
+    private static final Map<String, ArrayList<BaseStatusSignal>> signalsByBus = new LinkedHashMap<>();
+    private static final Set<BaseStatusSignal> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private static BaseStatusSignal[][] groups = new BaseStatusSignal[0][];
+
+    /**
+     * Registers signals to be refreshed with the rest of their bus.
+     *
+     * @param bus the bus the device of the signals is on
+     * @param signals signals to refresh every cycle, already registered signals are ignored
+     */
+    public static void register(CANBus bus, BaseStatusSignal... signals) {
+        register(bus.getName(), signals);
+    }
+
+    /**
+     * Registers signals to be refreshed with the rest of their bus.
+     *
+     * @param network name of the bus, as returned by {@code ParentDevice.getNetwork()}
+     * @param signals signals to refresh every cycle, already registered signals are ignored
+     */
+    public static synchronized void register(String network, BaseStatusSignal... signals) {
+        ArrayList<BaseStatusSignal> busSignals = signalsByBus.computeIfAbsent(network, k -> new ArrayList<>());
+        boolean added = false;
+        for (BaseStatusSignal signal : signals) {
+            if (signal != null && registered.add(signal)) {
+                busSignals.add(signal);
+                added = true;
+            }
+        }
+        if (added) rebuildGroups();
+    }
+
+    /**
+     * Checks if all the signals are refreshed by the registry.
+     *
+     * @param signals signals to check
+     * @return true if every signal is registered
+     */
+    public static synchronized boolean isRegistered(BaseStatusSignal... signals) {
+        if (signals == null || signals.length == 0) return false;
+        for (BaseStatusSignal signal : signals) {
+            if (!registered.contains(signal)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the status of the last shared refresh for a set of signals.
+     *
+     * <p>Every signal is checked, so an error on any of them is not hidden by the first.</p>
+     *
+     * @param signals signals refreshed by the registry
+     * @return the first error status, or the first warning if none failed, or OK
+     */
+    public static StatusCode getStatus(BaseStatusSignal... signals) {
+        StatusCode result = StatusCode.OK;
+        for (BaseStatusSignal signal : signals) {
+            StatusCode status = signal.getStatus();
+            if (status.isError()) return status;
+            if (result.isOK() && !status.isOK()) result = status;
+        }
+        return result;
+    }
+
+    /**
+     * Refreshes every registered signal, one call per CAN bus.
+     */
+    public static synchronized void refreshAll() {
+        for (int i = 0; i < groups.length; i++) {
+            BaseStatusSignal.refreshAll(groups[i]);
+        }
+    }
+
+    /**
+     * Gets the number of CAN buses with registered signals, each costs one refresh call per cycle.
+     */
+    public static synchronized int getBusCount() {
+        return groups.length;
+    }
+
+    public static synchronized int getSignalCount() {
+        return registered.size();
+    }
+
+    public static synchronized void clear() {
+        signalsByBus.clear();
+        registered.clear();
+        rebuildGroups();
+    }
+
+    private static void rebuildGroups() {
+        groups = new BaseStatusSignal[signalsByBus.size()][];
+        int i = 0;
+        for (ArrayList<BaseStatusSignal> busSignals : signalsByBus.values()) {
+            groups[i] = busSignals.toArray(new BaseStatusSignal[0]);
+            i++;
+        }
+    }
+}
@@ -5,11 +5,14 @@
 package frc.demacia.utils.chassis;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.ejml.simple.SimpleMatrix;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
@@ -24,9 +27,15 @@ import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.demacia.utils.DoubleData;
+import frc.demacia.utils.LoopProfiler;
 import frc.demacia.utils.Utilities;
+import frc.demacia.utils.Log.LogManager;
+import frc.demacia.utils.Log.LogEntryBuilder.LogLevel;
 import frc.demacia.utils.Sensors.Pigeon;
 
 /**
@@ -72,6 +81,37 @@ public class Chassis extends SubsystemBase {
     private SwerveDriveKinematics kinematics;
     private SwerveDrivePoseEstimator poseEstimator;
     private Field2d field;
+    private int profilerSection;
+
+    // cycles without a sample before periodic() stops waiting for the odometry thread
+    private static final int ODOMETRY_STALE_CYCLES = 5;
+
+    private OdometryThread odometryThread;
+    private int odometryStaleCycles = 0;
+    private final double[] odometrySample = new double[OdometryThread.SAMPLE_SIZE];
+    private final SwerveModulePosition[] odometryPositions = new SwerveModulePosition[4];
+
+    // primitive kinematics, the drive path below allocates nothing once constructed
+    private PrimitiveKinematics primitiveKinematics;
+    private final double[] moduleSpeeds = new double[4];
+    private final double[] moduleAngles = new double[4];
+    private double limitedVx, limitedVy;
+    private final SwerveModuleState[] moduleStates = new SwerveModuleState[4];
+    private Rotation2d odometryYaw;
+
+    // measured once at the start of every cycle, all getters read from it
+    private ChassisState state;
+    // filled in turn, state is one of them
+    private final ChassisState[] states = {new ChassisState(4), new ChassisState(4)};
+    private int stateIndex = 0;
+    // FPGA time of the last odometry update
+    private double odometryTimestamp;
+
+    private PoseHistory poseHistory;
+    private final double[] historySample = new double[PoseHistory.SAMPLE_SIZE];
+
+    private final VisionQueue visionQueue = new VisionQueue();
+    private VisionFilter visionFilter;
 
     public Chassis(ChassisConfig chassisConfig) {
         this.chassisConfig = chassisConfig;
@@ -88,11 +128,53 @@ public class Chassis extends SubsystemBase {
         chassisConfig.backLeftPosition,
         chassisConfig.backRightPosition
         );
-        poseEstimator = new SwerveDrivePoseEstimator(kinematics, getGyroAngle(), getModulePositions(), new Pose2d());
+        double yaw = gyro.getCurrentYaw();
+        poseEstimator = new SwerveDrivePoseEstimator(kinematics, new Rotation2d(yaw), getModulePositions(), new Pose2d());
+        primitiveKinematics = new PrimitiveKinematics(chassisConfig.frontLeftPosition, chassisConfig.frontRightPosition,
+            chassisConfig.backLeftPosition, chassisConfig.backRightPosition);
+        for (int i = 0; i < moduleStates.length; i++) {
+            moduleStates[i] = new SwerveModuleState();
+        }
+        poseHistory = new PoseHistory(chassisConfig.poseHistoryCapacity);
+        visionFilter = new VisionFilter(chassisConfig.visionMaxDistance, chassisConfig.visionMaxAngle,
+            chassisConfig.visionAcceptCount);
+        odometryTimestamp = Timer.getFPGATimestamp();
+        updateState(yaw);
 
         SimpleMatrix std = new SimpleMatrix(new double[] { 0.02, 0.02, 0 });
         poseEstimator.setVisionMeasurementStdDevs(new Matrix<>(std));
         field = new Field2d();
+        profilerSection = LoopProfiler.section("Chassis periodic");
+        LogManager.addEntry(chassisConfig.name + " vision rejected", DoubleData.of(() -> visionFilter.getRejectedCount()))
+            .withLogLevel(LogLevel.LOG_ONLY)
+            .build();
+        startOdometryThread();
+    }
+
+    /**
+     * Starts the high rate odometry thread if every module has TalonFX motors on the CAN
+     * network of the gyro. Otherwise odometry is updated once per cycle in periodic().
+     */
+    private void startOdometryThread() {
+        if (chassisConfig.odometryFrequency <= 0) return;
+        String network = gyro.getNetwork();
+        BaseStatusSignal[] signals = new BaseStatusSignal[modules.length * 2 + 1];
+        for (int i = 0; i < modules.length; i++) {
+            BaseStatusSignal[] moduleSignals = modules[i].getOdometrySignals();
+            if (moduleSignals == null) {
+                LogManager.log(modules[i].name + " is not TalonFX, odometry runs in periodic()", AlertType.kInfo);
+                return;
+            }
+            if (!network.equals(modules[i].getOdometryNetwork())) {
+                LogManager.log(modules[i].name + " is not on the CAN network of the gyro, odometry runs in periodic()", AlertType.kInfo);
+                return;
+            }
+            signals[i * 2] = moduleSignals[0];
+            signals[i * 2 + 1] = moduleSignals[1];
+            odometryPositions[i] = new SwerveModulePosition();
+        }
+        signals[signals.length - 1] = gyro.getYaw().clone();
+        odometryThread = new OdometryThread(signals, chassisConfig.odometryFrequency);
     }
 
     /**
@@ -121,10 +203,108 @@ public class Chassis extends SubsystemBase {
      * @return Current pose (position and rotation) using odometry fusion
      */
     public Pose2d getPose() {
-        return poseEstimator.getEstimatedPosition();
+        return state.getPose();
     }
 
-    Translation2d lastWantedSpeeds = new Translation2d();
+    /**
+     * Gets everything the chassis measured at the start of this cycle.
+     * 
+     * @return State of this cycle, it is reused two updates later
+     */
+    public ChassisState getState() {
+        return state;
+    }
+
+    /**
+     * Adds a vision pose to be fused in the next periodic(). Safe to call from camera threads,
+     * never blocks.
+     * 
+     * @param pose Robot pose seen by the camera
+     * @param timestampSeconds FPGA time the frame was captured, with the camera latency removed
+     * @param xStdDev Standard deviation of x in meters
+     * @param yStdDev Standard deviation of y in meters
+     * @param thetaStdDev Standard deviation of the heading in radians
+     * @return false if the queue was full and the measurement was dropped
+     */
+    public boolean addVisionMeasurement(Pose2d pose, double timestampSeconds, double xStdDev, double yStdDev, double thetaStdDev) {
+        return visionQueue.offer(new VisionQueue.Measurement(pose, timestampSeconds, VecBuilder.fill(xStdDev, yStdDev, thetaStdDev)));
+    }
+
+    /**
+     * Same as {@link #addVisionMeasurement(Pose2d, double, double, double, double)} with the
+     * default vision standard deviations.
+     */
+    public boolean addVisionMeasurement(Pose2d pose, double timestampSeconds) {
+        return visionQueue.offer(new VisionQueue.Measurement(pose, timestampSeconds, null));
+    }
+
+    /**
+     * @return Number of vision measurements dropped as outliers
+     */
+    public long getVisionRejectedCount() {
+        return visionFilter.getRejectedCount();
+    }
+
+    /**
+     * Moves the estimated pose to a known pose, for example the start pose of an autonomous.
+     * 
+     * <p>The gyro is not changed. Vision frames of the next cycle are fused, after that the
+     * ones far from the pose history are outliers.</p>
+     * 
+     * @param pose New robot pose on the field
+     */
+    public void resetPose(Pose2d pose) {
+        poseEstimator.resetPose(pose);
+        // the old poses no longer match the new one
+        updateState(state.getYaw());
+        poseHistory.clear();
+        visionFilter.reset();
+    }
+
+    /**
+     * Fuses the queued vision measurements, oldest first, that the {@link VisionFilter} accepts.
+     */
+    private void applyVisionMeasurements() {
+        int count = visionQueue.drain();
+        double now = Timer.getFPGATimestamp();
+        for (int i = 0; i < count; i++) {
+            VisionQueue.Measurement measurement = visionQueue.take(i);
+            VisionFilter.Result result = visionFilter.filter(measurement.pose, measurement.timestamp, now, poseHistory);
+            if (result == VisionFilter.Result.REJECTED) continue;
+            if (result == VisionFilter.Result.OUTLIERS_FUSED) {
+                LogManager.log("Vision disagreed with odometry " + chassisConfig.visionAcceptCount + " times in a row, using vision", AlertType.kWarning);
+            }
+            if (measurement.stdDevs == null) {
+                poseEstimator.addVisionMeasurement(measurement.pose, measurement.timestamp);
+            } else {
+                poseEstimator.addVisionMeasurement(measurement.pose, measurement.timestamp, measurement.stdDevs);
+            }
+        }
+    }
+
+    /**
+     * Gets the pose at a past time, interpolated from the pose history.
+     * 
+     * <p>Times older than the history get the oldest pose, newer times the current pose.</p>
+     * 
+     * @param timestampSeconds FPGA time in seconds
+     * @return Pose at that time, empty before the first cycle
+     */
+    public Optional<Pose2d> getPoseAt(double timestampSeconds) {
+        if (!poseHistory.sample(timestampSeconds, historySample)) return Optional.empty();
+        return Optional.of(new Pose2d(historySample[0], historySample[1], Rotation2d.fromRadians(historySample[2])));
+    }
+
+    /**
+     * Gets the field relative speeds at a past time, interpolated from the pose history.
+     * 
+     * @param timestampSeconds FPGA time in seconds
+     * @return Field relative speeds at that time, empty before the first cycle
+     */
+    public Optional<ChassisSpeeds> getSpeedsAt(double timestampSeconds) {
+        if (!poseHistory.sample(timestampSeconds, historySample)) return Optional.empty();
+        return Optional.of(new ChassisSpeeds(historySample[3], historySample[4], historySample[5]));
+    }
 
     /**
      * Sets chassis velocities with field-relative control and acceleration limiting.
@@ -138,12 +318,19 @@ public class Chassis extends SubsystemBase {
      *                     - omegaRadiansPerSecond: rotation velocity
      */
     public void setVelocitiesWithAccel(ChassisSpeeds wantedSpeeds){
-        ChassisSpeeds currentSpeeds = getChassisSpeedsFieldRel();
-        Translation2d limitedVelocitiesVector = calculateVelocity(wantedSpeeds.vxMetersPerSecond, wantedSpeeds.vyMetersPerSecond, currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond);//lastWantedSpeeds);
-        ChassisSpeeds limitedVelocities = new ChassisSpeeds(limitedVelocitiesVector.getX(), limitedVelocitiesVector.getY(), wantedSpeeds.omegaRadiansPerSecond);
-        lastWantedSpeeds = limitedVelocitiesVector;
-        setVelocities(limitedVelocities);
+        setVelocitiesWithAccel(wantedSpeeds.vxMetersPerSecond, wantedSpeeds.vyMetersPerSecond, wantedSpeeds.omegaRadiansPerSecond);
+    }
 
+    /**
+     * Same as {@link #setVelocitiesWithAccel(ChassisSpeeds)} without allocating.
+     * 
+     * @param vx Field-relative forward velocity in m/s
+     * @param vy Field-relative left velocity in m/s
+     * @param omega Rotation velocity in rad/s
+     */
+    public void setVelocitiesWithAccel(double vx, double vy, double omega){
+        calculateVelocity(vx, vy, state.getFieldVx(), state.getFieldVy());
+        setVelocities(limitedVx, limitedVy, omega, state.getYaw());
     }
 
     /**
@@ -155,11 +342,25 @@ public class Chassis extends SubsystemBase {
      * @param speeds Desired chassis speeds (field-relative)
      */
     public void setVelocities(ChassisSpeeds speeds) {
-        speeds = ChassisSpeeds.fromFieldRelativeSpeeds(speeds, getGyroAngle());
-        speeds = ChassisSpeeds.discretize(speeds, chassisConfig.cycleDt);
-        
-        SwerveModuleState[] states = kinematics.toSwerveModuleStates(speeds);
-        setModuleStates(states);
+        setVelocities(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
+    }
+
+    /**
+     * Same as {@link #setVelocities(ChassisSpeeds)} without allocating.
+     * 
+     * @param vx Field-relative forward velocity in m/s
+     * @param vy Field-relative left velocity in m/s
+     * @param omega Rotation velocity in rad/s
+     */
+    public void setVelocities(double vx, double vy, double omega) {
+        setVelocities(vx, vy, omega, state.getYaw());
+    }
+
+    private void setVelocities(double vx, double vy, double omega, double yaw) {
+        double cos = Math.cos(yaw);
+        double sin = Math.sin(yaw);
+        primitiveKinematics.discretize(vx * cos + vy * sin, -vx * sin + vy * cos, omega, chassisConfig.cycleDt);
+        setRobotRelVelocities(primitiveKinematics.vx, primitiveKinematics.vy, omega);
     }
 
     private double calculateLinearVelocity(double wantedSpeeds, double currentSpeeds) {
@@ -180,44 +381,50 @@ public class Chassis extends SubsystemBase {
      * @param speeds Desired chassis speeds (robot-relative)
      */
     public void setRobotRelSpeedsWithAccel(ChassisSpeeds speeds){
-        ChassisSpeeds currentSpeeds = getChassisSpeedsRobotRel();
-
-        Translation2d limitedVelocitiesVector = calculateVelocity(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond);//lastWantedSpeeds);
-        ChassisSpeeds limitedVelocities = new ChassisSpeeds(limitedVelocitiesVector.getX(), limitedVelocitiesVector.getY(), speeds.omegaRadiansPerSecond);
-        
-        setRobotRelVelocities(limitedVelocities);
+        calculateVelocity(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, state.getRobotVx(), state.getRobotVy());
+        setRobotRelVelocities(limitedVx, limitedVy, speeds.omegaRadiansPerSecond);
     }
 
     double lastAngle = 0;
-    private Translation2d calculateVelocity(double wantedSpeedsX, double wantedSpeedsY, double currentSpeedsX, double currentSpeedsY) {
+
+    private void setLimitedVelocity(double velocity, double angle) {
+        limitedVx = velocity * Math.cos(angle);
+        limitedVy = velocity * Math.sin(angle);
+    }
+
+    // Writes the limited velocity to limitedVx and limitedVy
+    private void calculateVelocity(double wantedSpeedsX, double wantedSpeedsY, double currentSpeedsX, double currentSpeedsY) {
         double wantedSpeedsNorm = Utilities.hypot(wantedSpeedsX, wantedSpeedsY);
         double currentSpeedsNorm = Utilities.hypot(currentSpeedsX, currentSpeedsY);
         double wantedSpeedsAngle = Utilities.angleFromTranslation2d(wantedSpeedsX, wantedSpeedsY);
         double currentSpeedsAngle = Utilities.angleFromTranslation2d(currentSpeedsX, currentSpeedsY);
 
-        if(wantedSpeedsNorm == 0 && currentSpeedsNorm == 0) return Translation2d.kZero;
+        if(wantedSpeedsNorm == 0 && currentSpeedsNorm == 0) {
+            setLimitedVelocity(0, 0);
+            return;
+        }
 
         if(currentSpeedsNorm <0.1){
-            // LogManager.log("SMALL VEL");
             double v = MathUtil.clamp(wantedSpeedsNorm, 0, currentSpeedsNorm + chassisConfig.maxDeltaVelocity);
-            return new Translation2d(v, Rotation2d.fromRadians(wantedSpeedsAngle));
+            setLimitedVelocity(v, wantedSpeedsAngle);
+            return;
         }
 
-        if(wantedSpeedsNorm == 0 && currentSpeedsNorm > 0.1) return new Translation2d(calculateLinearVelocity(wantedSpeedsNorm, currentSpeedsNorm), Rotation2d.fromRadians(lastAngle));
+        if(wantedSpeedsNorm == 0 && currentSpeedsNorm > 0.1) {
+            setLimitedVelocity(calculateLinearVelocity(wantedSpeedsNorm, currentSpeedsNorm), lastAngle);
+            return;
+        }
         lastAngle = currentSpeedsAngle;
         double angleDiff = MathUtil.angleModulus(wantedSpeedsAngle - currentSpeedsAngle);
         double radius = currentSpeedsNorm / chassisConfig.maxOmegaVelocity;
-        // LogManager.log("RADIUS: " + radius);
         if(Math.abs(angleDiff) < 0.6 || radius < chassisConfig.maxRadius){
-            
-            return new Translation2d(calculateLinearVelocity(wantedSpeedsNorm, currentSpeedsNorm), Rotation2d.fromRadians(wantedSpeedsAngle));
+            setLimitedVelocity(calculateLinearVelocity(wantedSpeedsNorm, currentSpeedsNorm), wantedSpeedsAngle);
+            return;
         }
 
         double velocity = Math.min(chassisConfig.maxVelocityToIgnoreRadius, Math.max(currentSpeedsNorm - (chassisConfig.maxDeltaVelocity), chassisConfig.minVelocity));
-    //    LogManager.log("NEW VELOCITY: " + velocity);
         double radChange = Math.min(chassisConfig.maxOmegaVelocity, (velocity / chassisConfig.maxRadius) * chassisConfig.cycleDt);
-        return new Translation2d(velocity, Rotation2d.fromRadians((radChange * Math.signum(angleDiff)) + currentSpeedsAngle));
-        
+        setLimitedVelocity(velocity, (radChange * Math.signum(angleDiff)) + currentSpeedsAngle);
     }
 
     public void setSteerPositions(double[] positions) {
@@ -243,12 +450,26 @@ public class Chassis extends SubsystemBase {
     }
 
     public ChassisSpeeds getRobotRelVelocities() {
-        return ChassisSpeeds.fromFieldRelativeSpeeds(getChassisSpeedsRobotRel(), getGyroAngle());
+        return ChassisSpeeds.fromFieldRelativeSpeeds(state.getRobotRelSpeeds(), state.getGyroAngle());
     }
 
     public void setRobotRelVelocities(ChassisSpeeds speeds) {
-        SwerveModuleState[] states = kinematics.toSwerveModuleStates(speeds);
-        setModuleStates(states);
+        setRobotRelVelocities(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
+    }
+
+    /**
+     * Inverse kinematics into the reused module buffers. When the chassis stops, the modules
+     * keep their last angle like SwerveDriveKinematics does.
+     * 
+     * @param vx Robot-relative forward velocity in m/s
+     * @param vy Robot-relative left velocity in m/s
+     * @param omega Rotation velocity in rad/s
+     */
+    public void setRobotRelVelocities(double vx, double vy, double omega) {
+        primitiveKinematics.toModuleStates(vx, vy, omega, moduleSpeeds, moduleAngles);
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].setState(moduleSpeeds[i], moduleAngles[i]);
+        }
     }
 
     public void setDriveVelocities(double[] velocities) {
@@ -262,7 +483,7 @@ public class Chassis extends SubsystemBase {
     }
 
     public Rotation2d getGyroAngle() {
-        return new Rotation2d(gyro.getCurrentYaw());
+        return state.getGyroAngle();
     }
 
     private SwerveModulePosition[] getModulePositions() {
@@ -279,14 +500,52 @@ public class Chassis extends SubsystemBase {
         }
     }
 
-    Rotation2d gyroAngle;
-
     @Override
     public void periodic() {
-        gyroAngle = getGyroAngle();
-        poseEstimator.update(gyroAngle, getModulePositions());
+        long start = LoopProfiler.start();
+        double yaw = gyro.getCurrentYaw();
+        if (odometryThread != null) {
+            pollOdometryThread();
+        }
+        if (odometryThread == null) {
+            // the estimator stamps this update with the FPGA time too
+            odometryTimestamp = Timer.getFPGATimestamp();
+            poseEstimator.update(new Rotation2d(yaw), getModulePositions());
+        }
+        applyVisionMeasurements();
+        updateState(yaw);
+        Pose2d pose = state.getPose();
+        poseHistory.record(state.getTimestamp(), pose.getX(), pose.getY(), pose.getRotation().getRadians(),
+            state.getFieldVx(), state.getFieldVy(), state.getOmega());
+
+        field.setRobotPose(pose);
+        LoopProfiler.end(profilerSection, start);
+    }
 
-        field.setRobotPose(poseEstimator.getEstimatedPosition());
+    /**
+     * Updates the pose estimator with every sample of the thread since the last cycle, in the
+     * order they were measured. After {@value #ODOMETRY_STALE_CYCLES} cycles without samples
+     * the thread is stopped and odometry goes back to once per cycle.
+     */
+    private void pollOdometryThread() {
+        boolean sampled = false;
+        while (odometryThread.poll(odometrySample)) {
+            sampled = true;
+            for (int i = 0; i < odometryPositions.length; i++) {
+                odometryPositions[i].distanceMeters = odometrySample[1 + i * 2];
+                odometryPositions[i].angle = PrimitiveKinematics.rotation(odometryPositions[i].angle, odometrySample[2 + i * 2]);
+            }
+            odometryYaw = PrimitiveKinematics.rotation(odometryYaw, odometrySample[OdometryThread.SAMPLE_SIZE - 1]);
+            poseEstimator.updateWithTime(odometrySample[0], odometryYaw, odometryPositions);
+            odometryTimestamp = odometrySample[0];
+        }
+        odometryStaleCycles = sampled ? 0 : odometryStaleCycles + 1;
+        if (odometryStaleCycles >= ODOMETRY_STALE_CYCLES) {
+            LogManager.log("Odometry thread sent no samples for " + ODOMETRY_STALE_CYCLES + " cycles ("
+                + odometryThread.getErrorCount() + " read errors), odometry runs in periodic()", AlertType.kError);
+            odometryThread.stop();
+            odometryThread = null;
+        }
     }
 
     /**
@@ -295,7 +554,26 @@ public class Chassis extends SubsystemBase {
      * @return Current velocities in robot frame
      */
     public ChassisSpeeds getChassisSpeedsRobotRel() {
-        return kinematics.toChassisSpeeds(getModuleStates());
+        return state.getRobotRelSpeeds();
+    }
+
+    /**
+     * Reads every module once into the older of the two states and makes it the state of this
+     * cycle, with the forward kinematics of the measured module states and the pose and time
+     * of the last odometry update.
+     */
+    private void updateState(double yaw) {
+        stateIndex ^= 1;
+        ChassisState next = states[stateIndex];
+        for (int i = 0; i < modules.length; i++) {
+            next.moduleSpeeds[i] = modules[i].getDriveVel();
+            next.moduleAngles[i] = modules[i].getSteerAngle();
+            next.moduleDistances[i] = modules[i].getDrivePosition();
+        }
+        primitiveKinematics.toChassisSpeeds(next.moduleSpeeds, next.moduleAngles);
+        next.set(odometryTimestamp, poseEstimator.getEstimatedPosition(), yaw,
+            primitiveKinematics.vx, primitiveKinematics.vy, primitiveKinematics.omega);
+        state = next;
     }
 
     /**
@@ -304,21 +582,23 @@ public class Chassis extends SubsystemBase {
     * @return Current velocities transformed to field frame
     */
     public ChassisSpeeds getChassisSpeedsFieldRel() {
-        return ChassisSpeeds.fromRobotRelativeSpeeds(kinematics.toChassisSpeeds(getModuleStates()), getGyroAngle());
+        return state.getFieldRelSpeeds();
     }
 
     /**
      * Returns the state of every module
      * 
+     * <p>The array and its states are reused and change every cycle, copy them to keep them.
+     * Use {@link ChassisState#getModuleStates()} for a copy.</p>
      * 
      * @return Velocity in m/s, angle in Rotation2d
      */
     public SwerveModuleState[] getModuleStates() {
-        SwerveModuleState[] res = new SwerveModuleState[modules.length];
-        for (int i = 0; i < modules.length; i++) {
-            res[i] = modules[i].getState();
+        for (int i = 0; i < moduleStates.length; i++) {
+            moduleStates[i].speedMetersPerSecond = state.getModuleSpeed(i);
+            moduleStates[i].angle = PrimitiveKinematics.rotation(moduleStates[i].angle, state.getModuleAngle(i));
         }
-        return res;
+        return moduleStates;
     }
 
     /**
@@ -333,6 +613,9 @@ public class Chassis extends SubsystemBase {
             gyro.setYaw(angle.getDegrees());
             poseEstimator
                     .resetPose(new Pose2d(poseEstimator.getEstimatedPosition().getTranslation(), gyro.getRotation2d()));
+            // the rest of this cycle uses the new yaw, the old poses no longer match it
+            updateState(angle.getRadians());
+            poseHistory.clear();
         }
     }
 
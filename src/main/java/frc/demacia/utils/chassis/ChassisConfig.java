@@ -40,6 +40,11 @@ public class ChassisConfig {
     public double maxDeltaVelocity = maxLinearAccel * cycleDt;
     public double maxVelocityToIgnoreRadius = maxRadius * maxOmegaVelocity;
     public double minVelocity = 1.5;
+    public double odometryFrequency = 250;
+    public double visionMaxDistance = 1.0;
+    public double visionMaxAngle = Math.toRadians(30);
+    public int visionAcceptCount = 10;
+    public int poseHistoryCapacity = 100;
 
     public ChassisConfig(String name, SwerveModuleConfig frontLeftModuleConfig, SwerveModuleConfig frontRightModuleConfig, SwerveModuleConfig backLeftModuleConfig, SwerveModuleConfig backRightModuleConfig, PigeonConfig pigeonConfig, Translation2d frontLeftPosition, Translation2d frontRightPosition, Translation2d backLeftPosition, Translation2d backRightPosition){
         this.name = name;
@@ -134,4 +139,59 @@ public class ChassisConfig {
         this.minVelocity = minVelocity;
         return this;
     }
+
+    /**
+     * Sets how fast the odometry thread samples the module positions and gyro.
+     * 
+     * <p>Needs TalonFX drive and steer motors. 0 updates odometry once per cycle in periodic().</p>
+     * 
+     * @param odometryFrequency Samples per second
+     * @return this config for chaining
+     */
+    public ChassisConfig withOdometryFrequency(double odometryFrequency){
+        this.odometryFrequency = odometryFrequency;
+        return this;
+    }
+
+    /**
+     * Sets how far a vision pose can be from the odometry pose at the time of the frame.
+     *
+     * <p>Measurements further away are dropped as outliers.</p>
+     *
+     * @param visionMaxDistance Maximum distance in meters
+     * @param visionMaxAngle Maximum heading difference in radians
+     * @return this config for chaining
+     */
+    public ChassisConfig withVisionMaxError(double visionMaxDistance, double visionMaxAngle){
+        this.visionMaxDistance = visionMaxDistance;
+        this.visionMaxAngle = visionMaxAngle;
+        return this;
+    }
+
+    /**
+     * Sets after how many outliers in a row vision is trusted over odometry.
+     *
+     * <p>When that many outliers agree with each other the odometry pose is the one that is
+     * wrong, for example after the robot was moved by hand, and the last of them is fused.</p>
+     *
+     * @param visionAcceptCount Number of outliers in a row
+     * @return this config for chaining
+     */
+    public ChassisConfig withVisionAcceptCount(int visionAcceptCount){
+        this.visionAcceptCount = visionAcceptCount;
+        return this;
+    }
+
+    /**
+     * Sets how many cycles of pose and speeds the chassis keeps for getPoseAt and getSpeedsAt.
+     *
+     * <p>100 cycles keep 2 seconds at 50Hz.</p>
+     *
+     * @param poseHistoryCapacity Number of samples
+     * @return this config for chaining
+     */
+    public ChassisConfig withPoseHistoryCapacity(int poseHistoryCapacity){
+        this.poseHistoryCapacity = poseHistoryCapacity;
+        return this;
+    }
 }
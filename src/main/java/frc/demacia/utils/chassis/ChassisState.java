@@ -0,0 +1,140 @@
+package frc.demacia.utils.chassis;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Everything the chassis measured in one cycle.
+ *
+ * <p>{@link Chassis} fills one state at the start of its periodic(), after odometry was
+ * updated, and every getter of the chassis reads from it. Forward kinematics and the gyro
+ * run once per cycle and all commands in the cycle see the same values.</p>
+ *
+ * <p>The chassis keeps two states and fills them in turn, so building the state allocates
+ * nothing. A state stays the same until the chassis fills the state after the next one, so
+ * it can be compared with the state after it. setYaw fills a state too. Copy the values to
+ * keep them longer.</p>
+ */
+public final class ChassisState {
+    private double timestamp;
+    private Pose2d pose;
+    private double yaw;
+    private Rotation2d gyroAngle;
+
+    private double robotVx, robotVy, omega;
+    private double fieldVx, fieldVy;
+
+    final double[] moduleSpeeds;
+    final double[] moduleAngles;
+    final double[] moduleDistances;
+
+    ChassisState(int moduleCount) {
+        moduleSpeeds = new double[moduleCount];
+        moduleAngles = new double[moduleCount];
+        moduleDistances = new double[moduleCount];
+    }
+
+    /**
+     * Sets the values of a new cycle. The module arrays are filled by the chassis before.
+     */
+    void set(double timestamp, Pose2d pose, double yaw, double robotVx, double robotVy, double omega) {
+        this.timestamp = timestamp;
+        this.pose = pose;
+        this.yaw = yaw;
+        this.robotVx = robotVx;
+        this.robotVy = robotVy;
+        this.omega = omega;
+        double cos = Math.cos(yaw);
+        double sin = Math.sin(yaw);
+        this.fieldVx = robotVx * cos - robotVy * sin;
+        this.fieldVy = robotVx * sin + robotVy * cos;
+    }
+
+    /** @return FPGA time of the odometry sample the pose is from, in seconds */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    public Pose2d getPose() {
+        return pose;
+    }
+
+    /** @return Gyro yaw in radians (unbounded) */
+    public double getYaw() {
+        return yaw;
+    }
+
+    /** @return Gyro yaw as a rotation, made only when asked for */
+    public Rotation2d getGyroAngle() {
+        return gyroAngle = PrimitiveKinematics.rotation(gyroAngle, yaw);
+    }
+
+    public double getRobotVx() {
+        return robotVx;
+    }
+
+    public double getRobotVy() {
+        return robotVy;
+    }
+
+    /** @return Rotation velocity in rad/s */
+    public double getOmega() {
+        return omega;
+    }
+
+    public double getFieldVx() {
+        return fieldVx;
+    }
+
+    public double getFieldVy() {
+        return fieldVy;
+    }
+
+    public int getModuleCount() {
+        return moduleSpeeds.length;
+    }
+
+    /** @return drive velocity of a module in m/s */
+    public double getModuleSpeed(int module) {
+        return moduleSpeeds[module];
+    }
+
+    /** @return steer angle of a module in radians */
+    public double getModuleAngle(int module) {
+        return moduleAngles[module];
+    }
+
+    /** @return drive distance of a module in meters */
+    public double getModuleDistance(int module) {
+        return moduleDistances[module];
+    }
+
+    public ChassisSpeeds getRobotRelSpeeds() {
+        return new ChassisSpeeds(robotVx, robotVy, omega);
+    }
+
+    public ChassisSpeeds getFieldRelSpeeds() {
+        return new ChassisSpeeds(fieldVx, fieldVy, omega);
+    }
+
+    /** @return new copies of the module states */
+    public SwerveModuleState[] getModuleStates() {
+        SwerveModuleState[] states = new SwerveModuleState[moduleSpeeds.length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new SwerveModuleState(moduleSpeeds[i], Rotation2d.fromRadians(moduleAngles[i]));
+        }
+        return states;
+    }
+
+    /** @return new copies of the module positions */
+    public SwerveModulePosition[] getModulePositions() {
+        SwerveModulePosition[] positions = new SwerveModulePosition[moduleDistances.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new SwerveModulePosition(moduleDistances[i], Rotation2d.fromRadians(moduleAngles[i]));
+        }
+        return positions;
+    }
+}
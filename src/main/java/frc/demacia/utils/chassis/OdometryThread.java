@@ -0,0 +1,136 @@
+package frc.demacia.utils.chassis;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+
+import edu.wpi.first.wpilibj.Threads;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import frc.demacia.utils.Log.LogManager;
+
+/**
+ * Background thread that samples the swerve odometry signals faster than the robot loop.
+ *
+ * <p>The thread blocks on {@link BaseStatusSignal#waitForAll} for the drive and steer
+ * positions of the four modules and the gyro yaw, so every sample is one synchronized set
+ * of CAN frames. Samples go into a ring of primitives with the time they were measured.
+ * The thread is the only producer and the robot loop the only consumer, so head and tail
+ * need no locks. When the loop falls behind the newest samples are dropped.</p>
+ *
+ * <p>The thread uses its own clones of the signals, so it never refreshes the signal
+ * objects that the robot loop reads. All the signals must be on one CAN network, a
+ * synchronized wait across networks never completes.</p>
+ *
+ * <p>When reading the signals fails the thread waits longer after every failure in a row,
+ * up to {@value #MAX_BACKOFF_CYCLES} periods, so a missing device does not spin the CPU.
+ * The first failure is reported by the robot loop when it polls.</p>
+ */
+class OdometryThread implements Runnable {
+
+    /** Values of a sample: timestamp, drive and steer position of every module, yaw */
+    static final int SAMPLE_SIZE = 10;
+
+    private static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_BACKOFF_CYCLES = 50;
+
+    private final BaseStatusSignal[] signals;
+    private final double period;
+    private final double timeoutSeconds;
+    private final double[] ring = new double[CAPACITY * SAMPLE_SIZE];
+
+    private volatile long head = 0;
+    private volatile long tail = 0;
+    private volatile boolean running = true;
+    private volatile long dropped = 0;
+    private volatile long errors = 0;
+    private volatile StatusCode lastError = StatusCode.OK;
+    private boolean droppedReported = false;
+    private boolean errorsReported = false;
+
+    private final Thread thread;
+
+    /**
+     * @param signals drive and steer position of every module in module order, then the yaw in degrees
+     * @param frequency samples per second
+     */
+    OdometryThread(BaseStatusSignal[] signals, double frequency) {
+        this.signals = signals;
+        this.period = 1.0 / frequency;
+        this.timeoutSeconds = 2 * period;
+        BaseStatusSignal.setUpdateFrequencyForAll(frequency, signals);
+
+        thread = new Thread(this, "Odometry");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        Threads.setCurrentThreadPriority(true, 1);
+        int failures = 0;
+        while (running) {
+            StatusCode status = BaseStatusSignal.waitForAll(timeoutSeconds, signals);
+            if (!status.isOK()) {
+                lastError = status;
+                errors++;
+                failures = Math.min(failures + 1, MAX_BACKOFF_CYCLES);
+                Timer.delay(failures * period);
+                continue;
+            }
+            failures = 0;
+
+            long t = tail;
+            if (t - head >= CAPACITY) {
+                dropped++;
+                continue;
+            }
+            double latency = 0;
+            for (BaseStatusSignal signal : signals) {
+                latency += signal.getTimestamp().getLatency();
+            }
+            int base = (int) (t & MASK) * SAMPLE_SIZE;
+            // FPGA time, the clock the pose estimator uses
+            ring[base] = Timer.getFPGATimestamp() - latency / signals.length;
+            for (int i = 0; i < signals.length - 1; i++) {
+                ring[base + 1 + i] = signals[i].getValueAsDouble();
+            }
+            ring[base + SAMPLE_SIZE - 1] = Math.toRadians(signals[signals.length - 1].getValueAsDouble());
+            tail = t + 1;
+        }
+    }
+
+    /**
+     * Copies the oldest sample into out and removes it. Robot loop only.
+     *
+     * @param out array of at least {@value #SAMPLE_SIZE} values
+     * @return false if there are no samples
+     */
+    boolean poll(double[] out) {
+        if (!errorsReported && errors > 0) {
+            errorsReported = true;
+            LogManager.log("Odometry thread failed to read the signals: " + lastError, AlertType.kWarning);
+        }
+        long h = head;
+        if (h == tail) {
+            if (dropped > 0 && !droppedReported) {
+                droppedReported = true;
+                LogManager.log("Odometry thread queue is full, dropping samples", AlertType.kWarning);
+            }
+            return false;
+        }
+        System.arraycopy(ring, (int) (h & MASK) * SAMPLE_SIZE, out, 0, SAMPLE_SIZE);
+        head = h + 1;
+        return true;
+    }
+
+    /** @return number of failed signal reads since the thread started */
+    long getErrorCount() {
+        return errors;
+    }
+
+    /** Ends the thread after its current wait, polling afterwards only drains what is left */
+    void stop() {
+        running = false;
+    }
+}
@@ -0,0 +1,128 @@
+package frc.demacia.utils.chassis;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Ring of the last chassis poses and field relative speeds, one sample per cycle.
+ *
+ * <p>Samples are kept as primitives in parallel arrays, so recording allocates nothing.
+ * Timestamps only grow, lookups binary search them and interpolate between the two samples
+ * around the wanted time. Times outside the history get the oldest or newest sample.
+ * Robot loop only.</p>
+ */
+class PoseHistory {
+
+    /** Values of {@link #sample}: x, y, theta, vx, vy, omega */
+    static final int SAMPLE_SIZE = 6;
+
+    private final int capacity;
+    private final double[] t;
+    private final double[] x;
+    private final double[] y;
+    private final double[] theta;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] omega;
+
+    private int oldest = 0;
+    private int count = 0;
+
+    PoseHistory(int capacity) {
+        this.capacity = Math.max(2, capacity);
+        t = new double[this.capacity];
+        x = new double[this.capacity];
+        y = new double[this.capacity];
+        theta = new double[this.capacity];
+        vx = new double[this.capacity];
+        vy = new double[this.capacity];
+        omega = new double[this.capacity];
+    }
+
+    /**
+     * Adds a sample, replacing the oldest when full. Samples older than the newest are ignored.
+     */
+    void record(double timestamp, double x, double y, double theta, double vx, double vy, double omega) {
+        if (count > 0 && timestamp <= t[index(count - 1)]) return;
+        int i;
+        if (count < capacity) {
+            i = index(count++);
+        } else {
+            i = oldest;
+            oldest = (oldest + 1) % capacity;
+        }
+        t[i] = timestamp;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.theta[i] = theta;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.omega[i] = omega;
+    }
+
+    void clear() {
+        oldest = 0;
+        count = 0;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** @return time of the oldest sample, NaN when empty */
+    double getOldestTimestamp() {
+        return count == 0 ? Double.NaN : t[oldest];
+    }
+
+    /**
+     * Interpolates the sample at a time into out.
+     *
+     * @param out array of at least {@value #SAMPLE_SIZE} values
+     * @return false if the history is empty
+     */
+    boolean sample(double timestamp, double[] out) {
+        if (count == 0) return false;
+        int upper = lowerBound(timestamp);
+        if (upper == 0 || upper == count) {
+            copy(index(upper == 0 ? 0 : count - 1), out);
+            return true;
+        }
+        int a = index(upper - 1);
+        int b = index(upper);
+        double f = (timestamp - t[a]) / (t[b] - t[a]);
+        out[0] = x[a] + (x[b] - x[a]) * f;
+        out[1] = y[a] + (y[b] - y[a]) * f;
+        out[2] = MathUtil.angleModulus(theta[a] + MathUtil.angleModulus(theta[b] - theta[a]) * f);
+        out[3] = vx[a] + (vx[b] - vx[a]) * f;
+        out[4] = vy[a] + (vy[b] - vy[a]) * f;
+        out[5] = omega[a] + (omega[b] - omega[a]) * f;
+        return true;
+    }
+
+    // first logical position with a time not before timestamp, count if none
+    private int lowerBound(double timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (t[index(mid)] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int index(int logical) {
+        return (oldest + logical) % capacity;
+    }
+
+    private void copy(int i, double[] out) {
+        out[0] = x[i];
+        out[1] = y[i];
+        out[2] = theta[i];
+        out[3] = vx[i];
+        out[4] = vy[i];
+        out[5] = omega[i];
+    }
+}
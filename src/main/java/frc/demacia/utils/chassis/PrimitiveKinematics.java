@@ -0,0 +1,140 @@
+package frc.demacia.utils.chassis;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.demacia.utils.Utilities;
+
+/**
+ * Swerve kinematics on doubles, the same math as SwerveDriveKinematics and
+ * ChassisSpeeds.discretize without allocating.
+ *
+ * <p>Module states go into arrays the caller owns. Chassis speeds go into {@link #vx},
+ * {@link #vy} and {@link #omega}, which hold the result of the last call until the next one.
+ * Robot loop only.</p>
+ */
+class PrimitiveKinematics {
+
+    private final double[] moduleX;
+    private final double[] moduleY;
+    // least squares forward kinematics: rows vx, vy, omega by the (vx, vy) of every module
+    private final double[][] forwardKinematics;
+
+    /** Chassis speeds of the last {@link #toChassisSpeeds} or {@link #discretize} */
+    double vx, vy, omega;
+
+    /**
+     * Stores the module locations as doubles and solves the forward kinematics matrix once.
+     *
+     * <p>Every module gives vx - omega*y and vy + omega*x. The chassis speeds are the least
+     * squares solution (A^T A)^-1 A^T of those equations, the same as SwerveDriveKinematics.</p>
+     */
+    PrimitiveKinematics(Translation2d... locations) {
+        moduleX = new double[locations.length];
+        moduleY = new double[locations.length];
+        forwardKinematics = new double[3][locations.length * 2];
+        double sumX = 0, sumY = 0, sumSquares = 0;
+        for (int i = 0; i < locations.length; i++) {
+            moduleX[i] = locations[i].getX();
+            moduleY[i] = locations[i].getY();
+            sumX += moduleX[i];
+            sumY += moduleY[i];
+            sumSquares += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+        }
+        double n = locations.length;
+        double[][] ata = {{n, 0, -sumY}, {0, n, sumX}, {-sumY, sumX, sumSquares}};
+        double[][] inverse = invert3x3(ata);
+        for (int i = 0; i < locations.length; i++) {
+            // columns of A^T for the vx and vy equations of module i
+            double[] vxColumn = {1, 0, -moduleY[i]};
+            double[] vyColumn = {0, 1, moduleX[i]};
+            for (int r = 0; r < 3; r++) {
+                forwardKinematics[r][i * 2] = inverse[r][0] * vxColumn[0] + inverse[r][1] * vxColumn[1] + inverse[r][2] * vxColumn[2];
+                forwardKinematics[r][i * 2 + 1] = inverse[r][0] * vyColumn[0] + inverse[r][1] * vyColumn[1] + inverse[r][2] * vyColumn[2];
+            }
+        }
+    }
+
+    private static double[][] invert3x3(double[][] m) {
+        double a = m[0][0], b = m[0][1], c = m[0][2];
+        double d = m[1][0], e = m[1][1], f = m[1][2];
+        double g = m[2][0], h = m[2][1], k = m[2][2];
+        double det = a * (e * k - f * h) - b * (d * k - f * g) + c * (d * h - e * g);
+        return new double[][] {
+            {(e * k - f * h) / det, (c * h - b * k) / det, (b * f - c * e) / det},
+            {(f * g - d * k) / det, (a * k - c * g) / det, (c * d - a * f) / det},
+            {(d * h - e * g) / det, (b * g - a * h) / det, (a * e - b * d) / det}
+        };
+    }
+
+    int getModuleCount() {
+        return moduleX.length;
+    }
+
+    /**
+     * Inverse kinematics. When the chassis stops, the angles keep their last value like
+     * SwerveDriveKinematics does.
+     *
+     * @param vx Robot-relative forward velocity in m/s
+     * @param vy Robot-relative left velocity in m/s
+     * @param omega Rotation velocity in rad/s
+     * @param speeds Drive velocity of every module in m/s, written
+     * @param angles Steer angle of every module in radians, written unless stopped
+     */
+    void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] angles) {
+        boolean stopped = vx == 0 && vy == 0 && omega == 0;
+        for (int i = 0; i < moduleX.length; i++) {
+            double moduleVx = vx - omega * moduleY[i];
+            double moduleVy = vy + omega * moduleX[i];
+            speeds[i] = Utilities.hypot(moduleVx, moduleVy);
+            if (!stopped) {
+                angles[i] = Math.atan2(moduleVy, moduleVx);
+            }
+        }
+    }
+
+    /**
+     * Forward kinematics of the module states into vx, vy and omega.
+     *
+     * @param speeds Drive velocity of every module in m/s
+     * @param angles Steer angle of every module in radians
+     */
+    void toChassisSpeeds(double[] speeds, double[] angles) {
+        double vx = 0, vy = 0, omega = 0;
+        for (int i = 0; i < moduleX.length; i++) {
+            double moduleVx = speeds[i] * Math.cos(angles[i]);
+            double moduleVy = speeds[i] * Math.sin(angles[i]);
+            vx += forwardKinematics[0][i * 2] * moduleVx + forwardKinematics[0][i * 2 + 1] * moduleVy;
+            vy += forwardKinematics[1][i * 2] * moduleVx + forwardKinematics[1][i * 2 + 1] * moduleVy;
+            omega += forwardKinematics[2][i * 2] * moduleVx + forwardKinematics[2][i * 2 + 1] * moduleVy;
+        }
+        this.vx = vx;
+        this.vy = vy;
+        this.omega = omega;
+    }
+
+    /**
+     * ChassisSpeeds.discretize into vx, vy and omega: the speeds that move along the arc of
+     * the wanted twist in one cycle. Omega does not change.
+     */
+    void discretize(double vx, double vy, double omega, double dt) {
+        double dtheta = omega * dt;
+        double halfDtheta = dtheta / 2;
+        double cosMinusOne = Math.cos(dtheta) - 1;
+        double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1e-9
+            ? 1.0 - dtheta * dtheta / 12.0
+            : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+        this.vx = vx * halfThetaByTanOfHalfDtheta + vy * halfDtheta;
+        this.vy = -vx * halfDtheta + vy * halfThetaByTanOfHalfDtheta;
+        this.omega = omega;
+    }
+
+    /**
+     * Rotation2d is immutable, so objects that hold one get a new one only when the angle
+     * changed. A module that does not steer allocates nothing.
+     *
+     * @return current if it already has the angle, otherwise a new rotation
+     */
+    static Rotation2d rotation(Rotation2d current, double radians) {
+        return current != null && current.getRadians() == radians ? current : Rotation2d.fromRadians(radians);
+    }
+}
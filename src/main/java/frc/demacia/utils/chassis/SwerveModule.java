@@ -1,10 +1,13 @@
 package frc.demacia.utils.chassis;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import frc.demacia.utils.Motors.MotorInterface;
+import frc.demacia.utils.Motors.TalonFXMotor;
 import frc.demacia.utils.Sensors.Cancoder;
 
 /**
@@ -107,6 +110,9 @@ public class SwerveModule {
     public double getDriveVel() {
         return driveMotor.getCurrentVelocity();
     }
+    public double getDrivePosition() {
+        return driveMotor.getCurrentPosition();
+    }
 
     /**
      * Sets the desired state for this module (velocity and angle).
@@ -117,9 +123,17 @@ public class SwerveModule {
      * @param state Target state with speed (m/s) and angle (Rotation2d)
      */
     public void setState(SwerveModuleState state) {
-        double wantedAngle = state.angle.getRadians();
+        setState(state.speedMetersPerSecond, state.angle.getRadians());
+    }
+
+    /**
+     * Same as {@link #setState(SwerveModuleState)} without a state object.
+     * 
+     * @param vel Target velocity in m/s
+     * @param wantedAngle Target angle in radians
+     */
+    public void setState(double vel, double wantedAngle) {
         double diff = wantedAngle - steerMotor.getCurrentPosition();
-        double vel = state.speedMetersPerSecond;
         diff = MathUtil.angleModulus(diff);
         if(diff > 0.5 * Math.PI) {
             vel = -vel;
@@ -142,6 +156,34 @@ public class SwerveModule {
         return new SwerveModulePosition(driveMotor.getCurrentPosition(), Rotation2d.fromRadians(steerMotor.getCurrentPosition()));
     }
 
+    /**
+     * Gets new copies of the drive and steer position signals, for the odometry thread.
+     * 
+     * @return drive and steer position signals, or null if a motor is not a TalonFX
+     */
+    BaseStatusSignal[] getOdometrySignals() {
+        if (!(driveMotor instanceof TalonFXMotor) || !(steerMotor instanceof TalonFXMotor)) {
+            return null;
+        }
+        return new BaseStatusSignal[] {
+            ((TalonFXMotor) driveMotor).getPosition().clone(),
+            ((TalonFXMotor) steerMotor).getPosition().clone()
+        };
+    }
+
+    /**
+     * Gets the CAN network of the odometry signals.
+     *
+     * @return network name, or null if the motors are not TalonFX or not on the same network
+     */
+    String getOdometryNetwork() {
+        if (!(driveMotor instanceof TalonFXMotor) || !(steerMotor instanceof TalonFXMotor)) {
+            return null;
+        }
+        String network = ((TalonFXMotor) driveMotor).getNetwork();
+        return network.equals(((TalonFXMotor) steerMotor).getNetwork()) ? network : null;
+    }
+
     /**
      * Gets the current state of the module.
      * 
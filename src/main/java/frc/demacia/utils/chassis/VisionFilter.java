@@ -0,0 +1,100 @@
+package frc.demacia.utils.chassis;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.demacia.utils.Utilities;
+
+/**
+ * Decides which vision poses the chassis fuses, by comparing them with the pose history.
+ *
+ * <p>Until the pose is known every vision pose is fused, the estimator starts at the origin
+ * and every real pose would be an outlier. While the history is empty, on the first cycle
+ * and after a pose reset, there is nothing to compare with and the pose is fused too. After
+ * that outliers are dropped, unless enough of them in a row agree with each other, then the
+ * odometry is the one that is wrong. Robot loop only.</p>
+ */
+class VisionFilter {
+
+    enum Result {
+        REJECTED,
+        FUSED,
+        /** fused after agreeing outliers in a row */
+        OUTLIERS_FUSED
+    }
+
+    private final double maxDistance;
+    private final double maxAngle;
+    private final int acceptCount;
+    private final double[] historySample = new double[PoseHistory.SAMPLE_SIZE];
+
+    // the start pose is a guess until the first vision pose or a reset
+    private boolean poseKnown = false;
+    // outliers in a row that agree with each other, and the last of them
+    private int outliers = 0;
+    private Pose2d lastOutlier;
+    private long rejected = 0;
+
+    /**
+     * @param maxDistance distance in meters from the history that makes a pose an outlier
+     * @param maxAngle heading difference in radians that makes a pose an outlier
+     * @param acceptCount agreeing outliers in a row that are fused
+     */
+    VisionFilter(double maxDistance, double maxAngle, int acceptCount) {
+        this.maxDistance = maxDistance;
+        this.maxAngle = maxAngle;
+        this.acceptCount = acceptCount;
+    }
+
+    /**
+     * Checks a vision pose against the history at the time of the frame. Frames from the
+     * future, or older than a history that is not empty, are rejected.
+     *
+     * @param now FPGA time in seconds
+     */
+    Result filter(Pose2d pose, double timestamp, double now, PoseHistory history) {
+        if (timestamp > now) return reject();
+        if (history.isEmpty()) return fuse(Result.FUSED);
+        if (!(timestamp >= history.getOldestTimestamp())) return reject();
+        if (!poseKnown) return fuse(Result.FUSED);
+
+        history.sample(timestamp, historySample);
+        if (!isFar(pose, historySample[0], historySample[1], historySample[2])) return fuse(Result.FUSED);
+
+        if (outliers > 0 && isFar(pose, lastOutlier.getX(), lastOutlier.getY(), lastOutlier.getRotation().getRadians())) {
+            outliers = 0;
+        }
+        outliers++;
+        lastOutlier = pose;
+        return outliers >= acceptCount ? fuse(Result.OUTLIERS_FUSED) : reject();
+    }
+
+    /** Called when the pose was set to a known pose */
+    void reset() {
+        poseKnown = true;
+        outliers = 0;
+        lastOutlier = null;
+    }
+
+    /** @return number of vision poses rejected */
+    long getRejectedCount() {
+        return rejected;
+    }
+
+    private Result fuse(Result result) {
+        poseKnown = true;
+        outliers = 0;
+        lastOutlier = null;
+        return result;
+    }
+
+    private Result reject() {
+        rejected++;
+        return Result.REJECTED;
+    }
+
+    private boolean isFar(Pose2d pose, double x, double y, double theta) {
+        double distance = Utilities.hypot(pose.getX() - x, pose.getY() - y);
+        double angle = Math.abs(MathUtil.angleModulus(pose.getRotation().getRadians() - theta));
+        return distance > maxDistance || angle > maxAngle;
+    }
+}
@@ -0,0 +1,92 @@
+package frc.demacia.utils.chassis;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import frc.demacia.utils.Log.LogManager;
+
+/**
+ * Queue of vision measurements from the camera threads to the robot loop.
+ *
+ * <p>Any thread can offer measurements, offer never blocks and never waits for the robot
+ * loop. When the queue is full the newest measurement is dropped. The robot loop drains
+ * the queue once per cycle into a reused batch sorted by timestamp, so the pose estimator
+ * gets the measurements in the order they were measured and not the order they arrived.</p>
+ */
+class VisionQueue {
+
+    private static final int CAPACITY = 32;
+
+    /** One vision pose, made by the camera thread */
+    static final class Measurement {
+        final Pose2d pose;
+        /** FPGA time of the frame in seconds */
+        final double timestamp;
+        /** Standard deviations of x, y and theta, null for the default of the estimator */
+        final Matrix<N3, N1> stdDevs;
+
+        Measurement(Pose2d pose, double timestamp, Matrix<N3, N1> stdDevs) {
+            this.pose = pose;
+            this.timestamp = timestamp;
+            this.stdDevs = stdDevs;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Measurement> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Measurement[] batch = new Measurement[CAPACITY];
+    private volatile boolean dropped = false;
+    private boolean droppedReported = false;
+
+    /**
+     * Adds a measurement. Safe from any thread.
+     *
+     * @return false if the queue is full and the measurement was dropped
+     */
+    boolean offer(Measurement measurement) {
+        if (size.incrementAndGet() > CAPACITY) {
+            size.decrementAndGet();
+            dropped = true;
+            return false;
+        }
+        queue.offer(measurement);
+        return true;
+    }
+
+    /**
+     * Moves every queued measurement into the batch, oldest timestamp first. Robot loop only.
+     *
+     * @return number of measurements in the batch
+     */
+    int drain() {
+        int count = 0;
+        Measurement measurement;
+        while (count < CAPACITY && (measurement = queue.poll()) != null) {
+            size.decrementAndGet();
+            // insertion sort, the batch is small and mostly in order
+            int i = count++;
+            while (i > 0 && batch[i - 1].timestamp > measurement.timestamp) {
+                batch[i] = batch[i - 1];
+                i--;
+            }
+            batch[i] = measurement;
+        }
+        if (dropped && !droppedReported) {
+            droppedReported = true;
+            LogManager.log("Vision queue is full, dropping measurements", AlertType.kWarning);
+        }
+        return count;
+    }
+
+    /** @return measurement i of the last drain, the reference is cleared */
+    Measurement take(int i) {
+        Measurement measurement = batch[i];
+        batch[i] = null;
+        return measurement;
+    }
+}
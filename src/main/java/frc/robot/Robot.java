@@ -7,6 +7,8 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.demacia.utils.LoopProfiler;
+import frc.demacia.utils.Log.LogManager;
 
 /**
  * The methods in this class are called automatically corresponding to each mode, as described in
@@ -26,6 +28,8 @@ public class Robot extends TimedRobot {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+    // All the subsystems added their log entries, build the category entries once.
+    LogManager.freeze();
   }
 
   /**
@@ -37,11 +41,13 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    long loopStart = LoopProfiler.start();
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
     CommandScheduler.getInstance().run();
+    LoopProfiler.endLoop(loopStart);
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -0,0 +1,85 @@
+package frc.demacia.SysID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that {@link LogReader} finds the constants a {@link SyntheticLogGenerator} log was
+ * made with.
+ *
+ * <p>kS is checked in volts, kV and kA relative to the real value. kA is checked in
+ * the slow bucket, where the voltage steps give the fit enough acceleration. kV is checked in
+ * the slow and mid buckets, the high bucket has too few samples near the top speed to hold
+ * the same tolerance. {@link SysidBenchmark} prints the errors of every bucket.</p>
+ */
+class LogReaderRecoveryTest {
+
+    private static final double VOLTS_TOLERANCE = 0.1;
+    private static final double RELATIVE_TOLERANCE = 0.15;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversConstantsFromStructEntries() throws IOException {
+        Path log = dir.resolve("struct.wpilog");
+        List<SyntheticLogGenerator.Motor> truth = new SyntheticLogGenerator()
+            .withMotors(4).withDuration(60).write(log.toString());
+
+        assertRecovered(truth, new LogReader(log.toString()).analyze());
+    }
+
+    @Test
+    void recoversConstantsFromMergedEntries() throws IOException {
+        Path log = dir.resolve("merged.wpilog");
+        // entries of 3 and 1 motors
+        List<SyntheticLogGenerator.Motor> truth = new SyntheticLogGenerator()
+            .withMotors(4).withDuration(60).withMergedEntries(3).withSeed(2).write(log.toString());
+
+        assertRecovered(truth, new LogReader(log.toString()).analyze());
+    }
+
+    @Test
+    void indexedReadGivesTheSameResults() throws IOException {
+        Path log = dir.resolve("indexed.wpilog");
+        new SyntheticLogGenerator().withMotors(2).withDuration(30).write(log.toString());
+
+        Map<String, LogReader.SysIDResults> scanned = new LogReader(log.toString()).analyze();
+        assertTrue(Files.exists(Path.of(log + ".idx")), "the first read writes the record index");
+        Map<String, LogReader.SysIDResults> indexed = new LogReader(log.toString()).analyze();
+
+        assertEquals(scanned.keySet(), indexed.keySet());
+        for (String motor : scanned.keySet()) {
+            assertEquals(scanned.get(motor).toString(), indexed.get(motor).toString(), motor);
+        }
+    }
+
+    private static void assertRecovered(List<SyntheticLogGenerator.Motor> truth, Map<String, LogReader.SysIDResults> results) {
+        for (SyntheticLogGenerator.Motor motor : truth) {
+            LogReader.SysIDResults result = results.get(motor.name);
+            assertNotNull(result, motor.name + " missing");
+            assertNotNull(result.slow, motor.name + " has no slow fit");
+
+            assertEquals(motor.ks, result.slow.ks, VOLTS_TOLERANCE, motor + " kS");
+            assertRelative(motor.ka, result.slow.ka, motor + " slow kA");
+            assertRelative(motor.kv, result.slow.kv, motor + " slow kV");
+            if (result.mid != null) {
+                assertRelative(motor.kv, result.mid.kv, motor + " mid kV");
+            }
+        }
+    }
+
+    private static void assertRelative(double expected, double actual, String message) {
+        assertEquals(expected, actual, expected * RELATIVE_TOLERANCE, message);
+    }
+}
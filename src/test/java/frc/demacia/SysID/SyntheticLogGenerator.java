@@ -0,0 +1,222 @@
+package frc.demacia.SysID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLogWriter;
+import edu.wpi.first.util.datalog.FloatArrayLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import frc.demacia.utils.Motors.MotorSample;
+
+/**
+ * Writes wpilogs of simulated motors with known kS, kV and kA, in the same layout the robot
+ * logs them.
+ *
+ * <p>Every motor follows {@code V = kS*sign(v) + kV*v + kA*a} with static friction, driven by
+ * a repeating profile of slow ramps and voltage steps in both directions. Motors are written as
+ * {@code struct:MotorSample} entries, or with {@link #withMergedEntries(int)} as float arrays
+ * that share one entry named {@code "A | B"}, like LogManager's merged category entries.
+ * DS:enabled is written around the samples.</p>
+ *
+ * <pre>
+ * List&lt;SyntheticLogGenerator.Motor&gt; truth = new SyntheticLogGenerator()
+ *     .withMotors(8).withDuration(120).withMergedEntries(4)
+ *     .write("synthetic.wpilog");
+ * </pre>
+ */
+public class SyntheticLogGenerator {
+
+    private static final double PROFILE_SECONDS = 20;
+    private static final int SUBSTEPS = 20;
+    private static final long START_MICROS = 1_000_000;
+
+    private int motorCount = 4;
+    private double durationSeconds = 60;
+    private double sampleRate = 50;
+    private int motorsPerEntry = 1;
+    private double noise = 0.01;
+    private long seed = 1;
+
+    /** Ground truth of one simulated motor */
+    public static class Motor {
+        public final String name;
+        public final double ks, kv, ka;
+
+        Motor(String name, double ks, double kv, double ka) {
+            this.name = name;
+            this.ks = ks;
+            this.kv = kv;
+            this.ka = ka;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s ks=%.4f kv=%.4f ka=%.5f", name, ks, kv, ka);
+        }
+    }
+
+    public SyntheticLogGenerator withMotors(int count) {
+        motorCount = count;
+        return this;
+    }
+
+    public SyntheticLogGenerator withDuration(double seconds) {
+        durationSeconds = seconds;
+        return this;
+    }
+
+    public SyntheticLogGenerator withSampleRate(double hz) {
+        sampleRate = hz;
+        return this;
+    }
+
+    /**
+     * Writes the motors as float arrays, count motors per entry. 1 writes struct entries.
+     */
+    public SyntheticLogGenerator withMergedEntries(int count) {
+        motorsPerEntry = Math.max(1, count);
+        return this;
+    }
+
+    /**
+     * @param noise relative standard deviation of the logged velocity and acceleration
+     */
+    public SyntheticLogGenerator withNoise(double noise) {
+        this.noise = noise;
+        return this;
+    }
+
+    public SyntheticLogGenerator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Writes the log.
+     *
+     * @return the motors in the log with their real constants
+     * @throws IOException if the log can not be written
+     */
+    public List<Motor> write(String fileName) throws IOException {
+        Random random = new Random(seed);
+        List<Motor> motors = new ArrayList<>();
+        for (int i = 0; i < motorCount; i++) {
+            motors.add(new Motor("Motor" + i,
+                0.1 + 0.3 * random.nextDouble(),
+                0.08 + 0.12 * random.nextDouble(),
+                0.02 + 0.03 * random.nextDouble()));
+        }
+
+        int samples = (int) (durationSeconds * sampleRate);
+        double dt = 1 / sampleRate;
+        try (DataLogWriter log = new DataLogWriter(fileName)) {
+            BooleanLogEntry enabled = new BooleanLogEntry(log, "DS:enabled");
+            enabled.append(true, START_MICROS - 1);
+
+            List<StructLogEntry<MotorSample>> structEntries = new ArrayList<>();
+            List<FloatArrayLogEntry> mergedEntries = new ArrayList<>();
+            for (int first = 0; first < motorCount; first += motorsPerEntry) {
+                int last = Math.min(motorCount, first + motorsPerEntry);
+                if (motorsPerEntry == 1) {
+                    structEntries.add(StructLogEntry.create(log, motors.get(first).name, MotorSample.struct, "motor"));
+                } else {
+                    StringBuilder name = new StringBuilder();
+                    StringBuilder metaData = new StringBuilder();
+                    for (int m = first; m < last; m++) {
+                        if (m > first) {
+                            name.append(" | ");
+                            metaData.append(" | ");
+                        }
+                        name.append(motors.get(m).name);
+                        metaData.append("motor");
+                    }
+                    mergedEntries.add(new FloatArrayLogEntry(log, name.toString(), metaData.toString()));
+                }
+            }
+
+            double[] velocity = new double[motorCount];
+            double[] position = new double[motorCount];
+            MotorSample sample = new MotorSample();
+            float[] merged = new float[7 * motorsPerEntry];
+            int entryCount = (motorCount + motorsPerEntry - 1) / motorsPerEntry;
+            for (int i = 0; i < samples; i++) {
+                long timestamp = START_MICROS + (long) (i * dt * 1e6);
+                for (int e = 0; e < entryCount; e++) {
+                    int first = e * motorsPerEntry;
+                    int last = Math.min(motorCount, first + motorsPerEntry);
+                    for (int m = first; m < last; m++) {
+                        Motor motor = motors.get(m);
+                        // every motor runs the profile from a different point
+                        double voltage = profile(i * dt + m * 3.7);
+                        double v = velocity[m];
+                        double a = acceleration(motor, v, voltage);
+
+                        sample.position = position[m];
+                        sample.velocity = v == 0 ? 0 : v * (1 + noise * random.nextGaussian());
+                        sample.acceleration = a * (1 + noise * random.nextGaussian());
+                        sample.voltage = voltage;
+                        sample.current = Math.abs(voltage - motor.kv * v) * 10;
+                        sample.closedLoopError = 0;
+                        sample.closedLoopSetpoint = 0;
+                        if (motorsPerEntry == 1) {
+                            structEntries.get(e).append(sample, timestamp);
+                        } else {
+                            int offset = (m - first) * 7;
+                            merged[offset] = (float) sample.position;
+                            merged[offset + 1] = (float) sample.velocity;
+                            merged[offset + 2] = (float) sample.acceleration;
+                            merged[offset + 3] = (float) sample.voltage;
+                            merged[offset + 4] = (float) sample.current;
+                            merged[offset + 5] = (float) sample.closedLoopError;
+                            merged[offset + 6] = (float) sample.closedLoopSetpoint;
+                        }
+                        step(motor, m, velocity, position, voltage, dt);
+                    }
+                    if (motorsPerEntry > 1) {
+                        float[] values = last - first == motorsPerEntry ? merged : Arrays.copyOf(merged, (last - first) * 7);
+                        mergedEntries.get(e).append(values, timestamp);
+                    }
+                }
+            }
+            enabled.append(false, START_MICROS + (long) (samples * dt * 1e6));
+        }
+        return motors;
+    }
+
+    // Slow ramps for kS and kV, steps for kA, in both directions
+    private static double profile(double t) {
+        double c = t % PROFILE_SECONDS;
+        if (c < 6) return 10 * c / 6;
+        if (c < 7) return 0;
+        if (c < 9) return 4;
+        if (c < 10) return 0;
+        if (c < 12) return -7;
+        if (c < 13) return 0;
+        if (c < 19) return -10 * (c - 13) / 6;
+        return 0;
+    }
+
+    private static double acceleration(Motor motor, double velocity, double voltage) {
+        if (velocity == 0 && Math.abs(voltage) <= motor.ks) return 0;
+        double direction = velocity != 0 ? Math.signum(velocity) : Math.signum(voltage);
+        return (voltage - motor.ks * direction - motor.kv * velocity) / motor.ka;
+    }
+
+    // Integrates one sample period in substeps, the motor sticks when it stops under kS
+    private static void step(Motor motor, int m, double[] velocity, double[] position, double voltage, double dt) {
+        double h = dt / SUBSTEPS;
+        for (int k = 0; k < SUBSTEPS; k++) {
+            double v = velocity[m];
+            double next = v + acceleration(motor, v, voltage) * h;
+            if (v != 0 && Math.signum(next) != Math.signum(v) && Math.abs(voltage) <= motor.ks) {
+                next = 0;
+            }
+            velocity[m] = next;
+            position[m] += next * h;
+        }
+    }
+}
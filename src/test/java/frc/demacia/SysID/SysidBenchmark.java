@@ -0,0 +1,122 @@
+package frc.demacia.SysID;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the SysID pipeline on a synthetic log and checks that it finds the constants
+ * the log was made with.
+ *
+ * <pre>
+ * SysidBenchmark [--motors 8] [--seconds 120] [--rate 50] [--merge 1] [--runs 20] [--tolerance 0.15]
+ * </pre>
+ *
+ * <p>Prints the read speed of the first read (full scan that also writes the record index)
+ * and of an indexed read in MB/s, the fits per second of analyze() on a log that is already
+ * read, and the constants found against the real ones. kV is checked in every bucket, kA in
+ * the slow bucket where the steps give the fit enough acceleration, and kS (the breakaway
+ * voltage) within 0.1 V. Exits with 1 if any is outside the tolerance, so the run can gate
+ * reader and solver changes.</p>
+ */
+public class SysidBenchmark {
+
+    private static final String[] BUCKETS = {"slow", "mid", "high"};
+    private static final double KS_TOLERANCE_VOLTS = 0.1;
+
+    public static void main(String[] args) throws IOException {
+        int motors = 8;
+        double seconds = 120;
+        double rate = 50;
+        int merge = 1;
+        int runs = 20;
+        double tolerance = 0.15;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--motors": motors = Integer.parseInt(args[i + 1]); break;
+                case "--seconds": seconds = Double.parseDouble(args[i + 1]); break;
+                case "--rate": rate = Double.parseDouble(args[i + 1]); break;
+                case "--merge": merge = Integer.parseInt(args[i + 1]); break;
+                case "--runs": runs = Integer.parseInt(args[i + 1]); break;
+                case "--tolerance": tolerance = Double.parseDouble(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        Path log = Files.createTempFile("sysid-benchmark", ".wpilog");
+        Path index = Paths.get(log + ".idx");
+        try {
+            long start = System.nanoTime();
+            List<SyntheticLogGenerator.Motor> truth = new SyntheticLogGenerator()
+                .withMotors(motors).withDuration(seconds).withSampleRate(rate).withMergedEntries(merge)
+                .write(log.toString());
+            double megabytes = Files.size(log) / 1e6;
+            System.out.printf("Generated %.2f MB, %d motors, %.0f s at %.0f Hz in %.2f s%n",
+                megabytes, motors, seconds, rate, (System.nanoTime() - start) / 1e9);
+
+            Files.deleteIfExists(index);
+            start = System.nanoTime();
+            new LogReader(log.toString()).analyze();
+            double scanSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            LogReader reader = new LogReader(log.toString());
+            Map<String, LogReader.SysIDResults> results = reader.analyze();
+            double indexedSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                results = reader.analyze();
+            }
+            double fitSeconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("Full scan:    %.3f s, %.1f MB/s%n", scanSeconds, megabytes / scanSeconds);
+            System.out.printf("Indexed read: %.3f s, %.1f MB/s%n", indexedSeconds, megabytes / indexedSeconds);
+            System.out.printf("Analysis:     %.1f fits/s%n", motors * runs / fitSeconds);
+
+            boolean passed = checkRecovery(truth, results, tolerance);
+            System.out.println(passed ? "Recovery passed" : "Recovery FAILED");
+            if (!passed) System.exit(1);
+        } finally {
+            Files.deleteIfExists(log);
+            Files.deleteIfExists(index);
+        }
+    }
+
+    private static boolean checkRecovery(List<SyntheticLogGenerator.Motor> truth,
+            Map<String, LogReader.SysIDResults> results, double tolerance) {
+        boolean passed = true;
+        System.out.println("motor     bucket  kS error  kV error  kA error");
+        for (SyntheticLogGenerator.Motor motor : truth) {
+            LogReader.SysIDResults result = results.get(motor.name);
+            if (result == null) {
+                System.out.println(motor.name + " missing");
+                passed = false;
+                continue;
+            }
+            LogReader.BucketResult[] buckets = {result.slow, result.mid, result.high};
+            for (int b = 0; b < buckets.length; b++) {
+                LogReader.BucketResult r = buckets[b];
+                if (r == null) {
+                    System.out.printf("%-9s %-6s  no fit%n", motor.name, BUCKETS[b]);
+                    // the slow bucket always has data in the profile
+                    passed &= b != 0;
+                    continue;
+                }
+                double ksError = Math.abs(r.ks - motor.ks);
+                double kvError = Math.abs(r.kv - motor.kv) / motor.kv;
+                double kaError = Math.abs(r.ka - motor.ka) / motor.ka;
+                boolean ok = ksError <= KS_TOLERANCE_VOLTS && kvError <= tolerance && (b != 0 || kaError <= tolerance);
+                System.out.printf("%-9s %-6s  %6.3f V  %6.1f%%  %6.1f%%%s%n", motor.name, BUCKETS[b],
+                    ksError, kvError * 100, kaError * 100, ok ? "" : "  <--");
+                passed &= ok;
+            }
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,143 @@
+package frc.demacia.utils.chassis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Checks {@link PrimitiveKinematics} against SwerveDriveKinematics and ChassisSpeeds.discretize,
+ * and that it allocates nothing.
+ */
+class PrimitiveKinematicsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    // not centered, so the least squares forward kinematics has off diagonal terms
+    private static final Translation2d[] LOCATIONS = {
+        new Translation2d(0.35, 0.28),
+        new Translation2d(0.35, -0.30),
+        new Translation2d(-0.25, 0.28),
+        new Translation2d(-0.25, -0.30)
+    };
+
+    private final PrimitiveKinematics primitive = new PrimitiveKinematics(LOCATIONS);
+    private final SwerveDriveKinematics wpilib = new SwerveDriveKinematics(LOCATIONS);
+    private final Random random = new Random(1);
+
+    @Test
+    void inverseKinematicsMatches() {
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        for (int n = 0; n < 1000; n++) {
+            ChassisSpeeds chassisSpeeds = randomSpeeds();
+            primitive.toModuleStates(chassisSpeeds.vxMetersPerSecond, chassisSpeeds.vyMetersPerSecond,
+                chassisSpeeds.omegaRadiansPerSecond, speeds, angles);
+            SwerveModuleState[] expected = wpilib.toSwerveModuleStates(chassisSpeeds);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(expected[i].speedMetersPerSecond, speeds[i], EPSILON);
+                assertEquals(0, MathUtil.angleModulus(expected[i].angle.getRadians() - angles[i]), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void stoppingKeepsTheAngles() {
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        primitive.toModuleStates(1, 2, 3, speeds, angles);
+        double[] before = angles.clone();
+        primitive.toModuleStates(0, 0, 0, speeds, angles);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, speeds[i]);
+            assertEquals(before[i], angles[i]);
+        }
+    }
+
+    @Test
+    void forwardKinematicsMatches() {
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        SwerveModuleState[] states = new SwerveModuleState[4];
+        for (int n = 0; n < 1000; n++) {
+            for (int i = 0; i < 4; i++) {
+                speeds[i] = random.nextDouble() * 8 - 4;
+                angles[i] = random.nextDouble() * 2 * Math.PI - Math.PI;
+                states[i] = new SwerveModuleState(speeds[i], Rotation2d.fromRadians(angles[i]));
+            }
+            primitive.toChassisSpeeds(speeds, angles);
+            ChassisSpeeds expected = wpilib.toChassisSpeeds(states);
+            assertEquals(expected.vxMetersPerSecond, primitive.vx, 1e-6);
+            assertEquals(expected.vyMetersPerSecond, primitive.vy, 1e-6);
+            assertEquals(expected.omegaRadiansPerSecond, primitive.omega, 1e-6);
+        }
+    }
+
+    @Test
+    void discretizeMatches() {
+        for (int n = 0; n < 1000; n++) {
+            ChassisSpeeds speeds = randomSpeeds();
+            // include driving without rotation, where discretize uses the series
+            if (n % 10 == 0) speeds.omegaRadiansPerSecond = 0;
+            primitive.discretize(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, 0.02);
+            ChassisSpeeds expected = ChassisSpeeds.discretize(speeds, 0.02);
+            assertEquals(expected.vxMetersPerSecond, primitive.vx, EPSILON);
+            assertEquals(expected.vyMetersPerSecond, primitive.vy, EPSILON);
+            assertEquals(expected.omegaRadiansPerSecond, primitive.omega, EPSILON);
+        }
+    }
+
+    @Test
+    void rotationIsReusedWhileTheAngleDoesNotChange() {
+        Rotation2d rotation = PrimitiveKinematics.rotation(null, 1.5);
+        assertEquals(1.5, rotation.getRadians());
+        assertSame(rotation, PrimitiveKinematics.rotation(rotation, 1.5));
+        assertEquals(-0.5, PrimitiveKinematics.rotation(rotation, -0.5).getRadians());
+    }
+
+    @Test
+    void drivePathDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        Rotation2d rotation = Rotation2d.kZero;
+
+        // warm up, so the measured loop runs compiled code and the counter is initialized
+        for (int n = 0; n < 20000; n++) {
+            rotation = drive(speeds, angles, rotation);
+        }
+        threads.getThreadAllocatedBytes(thread);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int n = 0; n < 20000; n++) {
+            rotation = drive(speeds, angles, rotation);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        // one object per call would be hundreds of kilobytes
+        assertTrue(allocated < 1024, allocated + " bytes allocated");
+    }
+
+    // one cycle of the drive path with a constant command, like driving straight
+    private Rotation2d drive(double[] speeds, double[] angles, Rotation2d rotation) {
+        primitive.discretize(1.5, 0.5, 0.8, 0.02);
+        primitive.toModuleStates(primitive.vx, primitive.vy, primitive.omega, speeds, angles);
+        primitive.toChassisSpeeds(speeds, angles);
+        return PrimitiveKinematics.rotation(rotation, angles[0]);
+    }
+
+    private ChassisSpeeds randomSpeeds() {
+        return new ChassisSpeeds(random.nextDouble() * 8 - 4, random.nextDouble() * 8 - 4, random.nextDouble() * 12 - 6);
+    }
+}
@@ -0,0 +1,95 @@
+package frc.demacia.utils.chassis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Checks which vision poses {@link VisionFilter} lets the chassis fuse.
+ */
+class VisionFilterTest {
+
+    private static final int ACCEPT_COUNT = 3;
+
+    private final Pose2d origin = new Pose2d();
+    private final Pose2d far = new Pose2d(5, 2, Rotation2d.kZero);
+    private final Pose2d farElsewhere = new Pose2d(-3, 4, Rotation2d.kZero);
+
+    private VisionFilter filter;
+    private PoseHistory history;
+
+    @BeforeEach
+    void setUp() {
+        filter = new VisionFilter(1.0, Math.toRadians(30), ACCEPT_COUNT);
+        history = new PoseHistory(100);
+    }
+
+    // odometry standing at the origin from 0 to 1 second
+    private void recordOrigin() {
+        for (int i = 0; i <= 50; i++) {
+            history.record(i * 0.02, 0, 0, 0, 0, 0, 0);
+        }
+    }
+
+    @Test
+    void fusesOnTheFirstCycleBeforeAnyHistory() {
+        assertEquals(VisionFilter.Result.FUSED, filter.filter(far, 0.5, 1, history));
+        assertEquals(0, filter.getRejectedCount());
+    }
+
+    @Test
+    void fusesAfterAResetClearedTheHistory() {
+        recordOrigin();
+        filter.filter(origin, 0.5, 1, history);
+
+        filter.reset();
+        history.clear();
+        assertEquals(VisionFilter.Result.FUSED, filter.filter(far, 0.9, 1, history));
+        assertEquals(0, filter.getRejectedCount());
+    }
+
+    @Test
+    void fusesFarPosesUntilThePoseIsKnown() {
+        recordOrigin();
+        assertEquals(VisionFilter.Result.FUSED, filter.filter(far, 0.5, 1, history));
+        assertEquals(VisionFilter.Result.REJECTED, filter.filter(farElsewhere, 0.6, 1, history));
+    }
+
+    @Test
+    void rejectsFramesFromTheFutureAndOlderThanTheHistory() {
+        recordOrigin();
+        assertEquals(VisionFilter.Result.REJECTED, filter.filter(origin, 1.5, 1, history));
+        history.clear();
+        for (int i = 25; i <= 50; i++) {
+            history.record(i * 0.02, 0, 0, 0, 0, 0, 0);
+        }
+        assertEquals(VisionFilter.Result.REJECTED, filter.filter(origin, 0.2, 1, history));
+        assertEquals(2, filter.getRejectedCount());
+    }
+
+    @Test
+    void fusesAgreeingOutliersInARow() {
+        recordOrigin();
+        filter.reset();
+        for (int i = 1; i < ACCEPT_COUNT; i++) {
+            assertEquals(VisionFilter.Result.REJECTED, filter.filter(far, 0.5 + i * 0.02, 1, history));
+        }
+        assertEquals(VisionFilter.Result.OUTLIERS_FUSED, filter.filter(far, 0.9, 1, history));
+        assertEquals(ACCEPT_COUNT - 1, filter.getRejectedCount());
+    }
+
+    @Test
+    void disagreeingOutliersStartTheCountAgain() {
+        recordOrigin();
+        filter.reset();
+        for (int i = 0; i < ACCEPT_COUNT * 2; i++) {
+            Pose2d pose = i % 2 == 0 ? far : farElsewhere;
+            assertEquals(VisionFilter.Result.REJECTED, filter.filter(pose, 0.5 + i * 0.02, 1, history));
+        }
+        assertEquals(VisionFilter.Result.FUSED, filter.filter(origin, 0.9, 1, history));
+    }
+}